@@ -3,10 +3,15 @@
 
 layout(location = 0) in vec4 position;
 
-uniform mat4 u_MVP;
+layout(std140) uniform Camera {
+    mat4 u_View;
+    mat4 u_Proj;
+};
+
+uniform mat4 u_Model;
 
 void main() { 
-    gl_Position = u_MVP * position; 
+    gl_Position = u_Proj * u_View * u_Model * position; 
 }
 
 #shader fragment
@@ -0,0 +1,45 @@
+#shader vertex
+#version 330 core 
+
+layout(location = 0) in vec4 position;
+
+layout(std140) uniform Camera {
+    mat4 u_View;
+    mat4 u_Proj;
+};
+
+uniform mat4 u_Model;
+
+out vec2 v_World;
+
+void main() { 
+    vec4 world = u_Model * position;
+    gl_Position = u_Proj * u_View * world; 
+    v_World = world.xy;
+}
+
+#shader fragment
+#version 330 core
+
+layout(location = 0) out vec4 color;
+
+in vec2 v_World;
+
+uniform vec4 u_Color;
+uniform float u_GridSize;
+uniform vec2 u_GridMax;
+uniform float u_LineWidth;
+
+void main() {
+    float halfWidth = u_LineWidth * 0.5;
+    // distance to the nearest vertical and horizontal line, softened over one pixel
+    vec2 dist = abs(v_World - round(v_World / u_GridSize) * u_GridSize);
+    vec2 pixel = fwidth(v_World);
+    vec2 line = clamp((halfWidth + 0.5 * pixel - dist) / pixel, 0.0, 1.0);
+    // lines only run from 0 to the last row and column
+    vec2 inside = step(-halfWidth, v_World) * step(v_World, u_GridMax + halfWidth);
+    float coverage = max(line.x, line.y) * inside.x * inside.y;
+    if(coverage <= 0.0)
+        discard;
+    color = vec4(u_Color.rgb, u_Color.a * coverage);
+}
\ No newline at end of file
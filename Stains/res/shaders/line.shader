@@ -0,0 +1,28 @@
+#shader vertex
+#version 330 core 
+
+layout(location = 0) in vec4 position;
+layout(location = 1) in vec4 vertexColor;
+
+out vec4 v_Color;
+
+layout(std140) uniform Camera {
+    mat4 u_View;
+    mat4 u_Proj;
+};
+
+void main() { 
+    gl_Position = u_Proj * u_View * position; 
+    v_Color = vertexColor;
+}
+
+#shader fragment
+#version 330 core
+
+layout(location = 0) out vec4 color;
+
+in vec4 v_Color;
+
+void main() {
+    color = v_Color;
+}
\ No newline at end of file
@@ -3,14 +3,23 @@
 
 layout(location = 0) in vec4 position;
 layout(location = 1) in vec2 texCoord;
+layout(location = 2) in float layer;
+layout(location = 3) in float brightScale;
 
 out vec2 v_TexCoord;
+flat out float v_Layer;
+out float v_BrightScale;
 
-uniform mat4 u_MVP;
+layout(std140) uniform Camera {
+    mat4 u_View;
+    mat4 u_Proj;
+};
 
 void main() { 
-    gl_Position = u_MVP * position; 
+    gl_Position = u_Proj * u_View * position; 
     v_TexCoord = texCoord;
+    v_Layer = layer;
+    v_BrightScale = brightScale;
 }
 
 #shader fragment
@@ -19,12 +28,18 @@ void main() {
 layout(location = 0) out vec4 color;
 
 in vec2 v_TexCoord;
+flat in float v_Layer;
+in float v_BrightScale;
 
 uniform sampler2D u_Texture;
-uniform float u_BrightScale;
+uniform sampler2DArray u_TextureArray;
 
 void main() {
-    vec4 texColor = texture(u_Texture, v_TexCoord);
-    texColor.xyz += (1 - texColor.xyz) * u_BrightScale;
+    vec4 texColor;
+    if(v_Layer < 0)
+        texColor = texture(u_Texture, v_TexCoord);
+    else
+        texColor = texture(u_TextureArray, vec3(v_TexCoord, v_Layer));
+    texColor.xyz += (1 - texColor.xyz) * v_BrightScale;
     color = texColor;
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+#shader vertex
+#version 330 core 
+
+layout(location = 0) in vec4 position;
+layout(location = 1) in vec2 texCoord;
+layout(location = 2) in vec4 transform; // x, y, rotation, scale
+layout(location = 3) in vec4 frame; // offsetX, offsetY, width, height
+layout(location = 4) in vec4 region; // u0, v0, u1, v1
+layout(location = 5) in float layer;
+layout(location = 6) in float brightScale;
+
+out vec2 v_TexCoord;
+flat out float v_Layer;
+out float v_BrightScale;
+
+layout(std140) uniform Camera {
+    mat4 u_View;
+    mat4 u_Proj;
+};
+
+void main() { 
+    // same model matrix GameObject used to build: translate, rotate, scale, offset, then size to the texture
+    vec2 local = (position.xy * frame.zw + vec2(-frame.x, frame.y)) * transform.w;
+    float c = cos(transform.z);
+    float s = sin(transform.z);
+    vec2 world = transform.xy + vec2(local.x * c - local.y * s, local.x * s + local.y * c);
+    gl_Position = u_Proj * u_View * vec4(world, 0.0, 1.0); 
+    v_TexCoord = mix(region.xy, region.zw, texCoord);
+    v_Layer = layer;
+    v_BrightScale = brightScale;
+}
+
+#shader fragment
+#version 330 core
+
+layout(location = 0) out vec4 color;
+
+in vec2 v_TexCoord;
+flat in float v_Layer;
+in float v_BrightScale;
+
+uniform sampler2D u_Texture;
+uniform sampler2DArray u_TextureArray;
+
+void main() {
+    vec4 texColor;
+    if(v_Layer < 0)
+        texColor = texture(u_Texture, v_TexCoord);
+    else
+        texColor = texture(u_TextureArray, vec3(v_TexCoord, v_Layer));
+    texColor.xyz += (1 - texColor.xyz) * v_BrightScale;
+    color = texColor;
+}
\ No newline at end of file
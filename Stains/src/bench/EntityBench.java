@@ -0,0 +1,112 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import entities.Entity;
+import entities.EntityStore;
+
+/**
+ * Times stains seeking a target the way they used to, one object and one virtual update at a time, against the
+ * batched {@link EntityStore#seek(float, float, float)} with separation off, so both do the same work. The batched seek
+ * with separation on is timed as well, to show what steering stains apart adds; {@link SpatialHashBench} shows what
+ * finding the neighbors for it costs next to checking every pair. Needs no window. Run with the entity counts to try as arguments
+ */
+public class EntityBench {
+
+	private static final int WARMUP_STEPS = 200;
+	private static final int STEPS = 1000;
+	private static final float DELTA = 1.0f / 120;
+	private static final float SPEED = 30.0f;
+
+	public static void main(String[] args) {
+		int[] counts = { 1000, 10000, 50000, 100000 };
+		if(args.length > 0) {
+			counts = new int[args.length];
+			for(int i = 0; i < args.length; i++)
+				counts[i] = Integer.parseInt(args[i]);
+		}
+		for(int count : counts) {
+			double objects = timeObjects(count);
+			double store = timeStore(count, false);
+			double separated = timeStore(count, true);
+			System.out.printf("%7d entities: objects %8.3f ms/step, store %8.3f ms/step, %.1fx, store with separation %8.3f ms/step%n",
+					count, objects, store, objects / store, separated);
+		}
+	}
+
+	/** @return milliseconds per step of the per-object loop */
+	private static double timeObjects(int count) {
+		Random random = new Random(1);
+		List<ObjectStain> stains = new ArrayList<>(count);
+		for(int i = 0; i < count; i++)
+			stains.add(new ObjectStain(random.nextFloat() * 10000, random.nextFloat() * 10000));
+		ObjectStain target = new ObjectStain(5000, 5000);
+
+		for(int step = 0; step < WARMUP_STEPS; step++)
+			for(int i = stains.size() - 1; i >= 0; i--)
+				stains.get(i).update(target);
+		long start = System.nanoTime();
+		for(int step = 0; step < STEPS; step++)
+			for(int i = stains.size() - 1; i >= 0; i--)
+				stains.get(i).update(target);
+		return (System.nanoTime() - start) / 1e6 / STEPS;
+	}
+
+	/** @return milliseconds per step of the batched kernel */
+	private static double timeStore(int count, boolean separation) {
+		EntityStore.separation = separation;
+		Random random = new Random(1);
+		for(int i = 0; i < count; i++)
+			new Seeker(random.nextFloat() * 10000, random.nextFloat() * 10000);
+
+		for(int step = 0; step < WARMUP_STEPS; step++)
+			EntityStore.seek(5000, 5000, DELTA);
+		long start = System.nanoTime();
+		for(int step = 0; step < STEPS; step++)
+			EntityStore.seek(5000, 5000, DELTA);
+		double millis = (System.nanoTime() - start) / 1e6 / STEPS;
+
+		for(int i = Entity.list.size() - 1; i >= 0; i--)
+			Entity.list.remove(i).free();
+		EntityStore.separation = true;
+		return millis;
+	}
+
+	/** A stain as it used to be: its own fields, turned and moved in its own update */
+	private static class ObjectStain {
+		float x;
+		float y;
+		float rot;
+		float moveSpeed = SPEED;
+		boolean alive = true;
+
+		ObjectStain(float x, float y) {
+			this.x = x;
+			this.y = y;
+		}
+
+		void update(ObjectStain target) {
+			if(alive) {
+				rot = (float) Math.atan2(target.y - y, target.x - x);
+				x += (Math.cos(rot) * moveSpeed) * DELTA;
+				y += (Math.sin(rot) * moveSpeed) * DELTA;
+			}
+		}
+	}
+
+	/** A stain without textures or click handling, so no window is needed */
+	private static class Seeker extends Entity {
+
+		Seeker(float x, float y) {
+			super(x, y, 0, 0, 0, 0);
+			setMoveSpeed(SPEED);
+			setSeeking(true);
+		}
+
+		@Override
+		public void update() {}
+	}
+
+}
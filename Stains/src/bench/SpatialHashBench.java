@@ -0,0 +1,93 @@
+package bench;
+
+import java.util.Random;
+
+import util.IntList;
+import util.SpatialHash;
+
+/**
+ * Times building a {@link SpatialHash} and finding the neighbors of every point, as separation steering does each step,
+ * against checking every pair. Points are spread so each has a handful of neighbors at any count.
+ * Run with the point counts to try as arguments
+ */
+public class SpatialHashBench {
+
+	private static final float RADIUS = 48.0f;
+	/** area per point, in square pixels */
+	private static final float SPACING = 40.0f * 40.0f;
+	private static final int WARMUP_ROUNDS = 20;
+	private static final int ROUNDS = 50;
+	/** points checked against all others to estimate the cost of checking every pair */
+	private static final int PAIR_SAMPLES = 1000;
+
+	public static void main(String[] args) {
+		int[] counts = { 10000, 50000, 100000 };
+		if(args.length > 0) {
+			counts = new int[args.length];
+			for(int i = 0; i < args.length; i++)
+				counts[i] = Integer.parseInt(args[i]);
+		}
+		for(int count : counts)
+			run(count);
+	}
+
+	private static void run(int count) {
+		Random random = new Random(1);
+		float side = (float) Math.sqrt(count * SPACING);
+		float[] x = new float[count];
+		float[] y = new float[count];
+		for(int i = 0; i < count; i++) {
+			x[i] = random.nextFloat() * side;
+			y[i] = random.nextFloat() * side;
+		}
+		SpatialHash hash = new SpatialHash(RADIUS);
+		IntList out = new IntList();
+
+		long found = 0;
+		for(int round = 0; round < WARMUP_ROUNDS; round++)
+			found += neighbors(hash, x, y, count, out);
+		long build = 0, query = 0;
+		for(int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			hash.build(x, y, count);
+			long built = System.nanoTime();
+			for(int k = 0; k < count; k++) {
+				int i = hash.indexAt(k);
+				out.clear();
+				hash.queryRadius(x[i], y[i], RADIUS, out);
+				found += out.size();
+			}
+			build += built - start;
+			query += System.nanoTime() - built;
+		}
+
+		float radius2 = RADIUS * RADIUS;
+		long start = System.nanoTime();
+		for(int s = 0; s < PAIR_SAMPLES; s++) {
+			int i = s * (count / PAIR_SAMPLES);
+			for(int j = 0; j < count; j++) {
+				float dx = x[j] - x[i];
+				float dy = y[j] - y[i];
+				if(dx * dx + dy * dy <= radius2)
+					found++;
+			}
+		}
+		double pairs = (System.nanoTime() - start) / 1e6 * count / PAIR_SAMPLES;
+
+		System.out.printf("%7d points: build %7.3f ms, query all %7.3f ms, every pair ~%9.1f ms (%d)%n", count,
+				build / 1e6 / ROUNDS, query / 1e6 / ROUNDS, pairs, found % 10); // printed so the work isn't optimized away
+	}
+
+	private static int neighbors(SpatialHash hash, float[] x, float[] y, int count, IntList out) {
+		hash.build(x, y, count);
+		int found = 0;
+		for(int k = 0; k < count; k++) {
+			int i = hash.indexAt(k);
+			out.clear();
+			hash.queryRadius(x[i], y[i], RADIUS, out);
+			found += out.size();
+		}
+		return found;
+	}
+
+}
@@ -0,0 +1,22 @@
+package constants;
+
+/**
+ * Draw layers of a {@link gl.RenderQueue}, back to front. Everything on a layer is drawn before anything on the next one,
+ * whatever its shader or texture. At most 16 layers fit in a draw key
+ */
+public enum Layer {
+	/** full screen backgrounds */
+	BACKGROUND,
+	/** editor grid */
+	GRID,
+	/** walls and fillets of the map */
+	WALLS,
+	/** editor previews of walls and fillets that are not placed yet */
+	GHOSTS,
+	/** sprites in the world: entities, spawners, spawn points */
+	OBJECTS,
+	/** buttons and other screen space elements */
+	UI,
+	/** popup menus drawn over the UI */
+	MENU;
+}
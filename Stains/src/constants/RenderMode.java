@@ -0,0 +1,8 @@
+package constants;
+
+public enum RenderMode {
+	/** every entity is transformed on the CPU and added to the SpriteBatch */
+	BATCHED,
+	/** entities sharing a texture are drawn with one instanced call and transformed on the GPU */
+	INSTANCED;
+}
@@ -8,4 +8,6 @@ public class Resources {
 	public static final String SOUNDS_PATH = RES_PATH + "sounds/";
 	public static final String DATA_PATH = "data/";
 	public static final String MAPS_PATH = DATA_PATH + "maps/";
+	public static final String SCREENSHOTS_PATH = DATA_PATH + "screenshots/";
+	public static final String CACHE_PATH = DATA_PATH + "cache/";
 }
@@ -4,15 +4,21 @@ import gl.Shader;
 
 public class Shaders {
 	
-	public static Shader TEXTURE, COLOR;
+	public static Shader TEXTURE, TEXTURE_INSTANCED, COLOR, LINE, GRID;
 	
 	public static void init() {
-		TEXTURE = new Shader("texture.shader", "u_Texture", "u_MVP", "u_BrightScale");
-		COLOR = new Shader("color.shader", "u_Color", "u_MVP");
+		TEXTURE = new Shader("texture.shader", "u_Texture", "u_TextureArray");
+		TEXTURE_INSTANCED = new Shader("texture_instanced.shader", "u_Texture", "u_TextureArray");
+		COLOR = new Shader("color.shader", "u_Color", "u_Model");
+		LINE = new Shader("line.shader");
+		GRID = new Shader("grid.shader", "u_Model", "u_Color", "u_GridSize", "u_GridMax", "u_LineWidth");
 	}
 	
 	public static void destroy() {
 		TEXTURE.delete();
+		TEXTURE_INSTANCED.delete();
 		COLOR.delete();
+		LINE.delete();
+		GRID.delete();
 	}
 }
@@ -3,7 +3,9 @@ package constants;
 import java.util.ArrayList;
 import java.util.List;
 
+import gl.ImageLoader;
 import gl.Texture;
+import gl.TextureAtlas;
 import objects.Surface;
 import util.Animation;
 
@@ -15,6 +17,9 @@ public class Textures {
 	public static Animation KETCHUP_DEATH;
 	
 	public static void init() {
+		TextureAtlas.begin();
+		ImageLoader.begin(); // decode everything below in parallel, sizes and uploads are filled in by end()
+		
 		Texture.setLocalPath("player/");
 			PLAYER = new Texture("alive.png", 98, 107, 1);
 		
@@ -24,11 +29,15 @@ public class Textures {
 			
 		Title.init();
 		Editor.init();
+		
+		ImageLoader.end();
+		TextureAtlas.end();
 	}
 	
 	public static void destroy() {
 		for(Surface s : allTextures)
 			s.delete();
+		TextureAtlas.destroy();
 	}
 	
 	public static class Title {
@@ -3,9 +3,16 @@ package entities;
 import java.util.ArrayList;
 import java.util.List;
 
+import constants.Mode;
 import objects.GameObject;
 import staindev.Game;
+import util.ClickListener;
 
+/**
+ * An object that is updated every simulation step. Its transform, speed and whether it is alive live in the
+ * {@link EntityStore}, and this is a view over its slot there, so the <code>x</code>, <code>y</code> and <code>rot</code>
+ * fields of {@link GameObject} are not used. Go through {@link #getX()}, {@link #setX(float)} and the like instead
+ */
 public abstract class Entity extends GameObject {
 	
 	/** list for all entities that wish to be updated and rendered */
@@ -16,9 +23,8 @@ public abstract class Entity extends GameObject {
 	//
 //	public float vx;
 //	public float vy;
-	/** in pixels per second */
-	public float moveSpeed;
-	protected boolean alive = true;
+	/** index in the {@link EntityStore}. Changes when other entities are removed */
+	private int slot;
 	
 	/**
 	 * Creates an entity which can be updated and rendered to the screen. This object is automatically added the <code>list</code>
@@ -33,6 +39,7 @@ public abstract class Entity extends GameObject {
 		super(x, y, rot, scale);
 //		this.vx = vx;
 //		this.vy = vy;
+		slot = EntityStore.add(this, x, y, rot);
 		list.add(this);
 	}
 	
@@ -40,26 +47,114 @@ public abstract class Entity extends GameObject {
 	public abstract void update();
 	
 	public float angleTo(Entity other) {
-		return (float) Math.atan2(other.y - y, other.x - x);
+		return (float) Math.atan2(other.getY() - getY(), other.getX() - getX());
 	}
 	
 	/** Move by <strong>moveSpeed</strong> in direction <strong>dir</strong>*/
 	public void move(float dir) {
-		x += (Math.cos(dir) * moveSpeed) * Game.delta;
-		y += (Math.sin(dir) * moveSpeed) * Game.delta;
+		EntityStore.x[slot] += (Math.cos(dir) * EntityStore.speed[slot]) * Game.delta;
+		EntityStore.y[slot] += (Math.sin(dir) * EntityStore.speed[slot]) * Game.delta;
 	}
 	
 	/** Move by <strong>moveSpeed</strong> in direction <strong>rot</strong>*/
 	public void move() {
-		move(rot);
+		move(getRot());
 	}
 	
+	@Override
+	public float getX() {
+		return EntityStore.x[slot];
+	}
+	
+	@Override
+	public float getY() {
+		return EntityStore.y[slot];
+	}
+	
+	@Override
+	public float getRot() {
+		return EntityStore.rot[slot];
+	}
+	
+	@Override
+	public void setX(float x) {
+		EntityStore.x[slot] = x;
+	}
+	
+	@Override
+	public void setY(float y) {
+		EntityStore.y[slot] = y;
+	}
+	
+	@Override
+	public void setRot(float rot) {
+		EntityStore.rot[slot] = rot;
+	}
+	
+	/** Entities are stored all at once with {@link EntityStore#storePrevious()}, this only stores this one */
+	@Override
+	public void storePrevious() {
+		EntityStore.lastX[slot] = EntityStore.x[slot];
+		EntityStore.lastY[slot] = EntityStore.y[slot];
+		EntityStore.lastRot[slot] = EntityStore.rot[slot];
+	}
+	
+	@Override
+	public float getLastX() {
+		return EntityStore.lastX[slot];
+	}
+	
+	@Override
+	public float getLastY() {
+		return EntityStore.lastY[slot];
+	}
+	
+	@Override
+	public float getLastRot() {
+		return EntityStore.lastRot[slot];
+	}
+	
+	/** @return speed in pixels per second */
+	public float getMoveSpeed() {
+		return EntityStore.speed[slot];
+	}
+	
+	/** @param moveSpeed in pixels per second */
+	public void setMoveSpeed(float moveSpeed) {
+		EntityStore.speed[slot] = moveSpeed;
+	}
+	
+	/**
+	 * @param seeking whether {@link EntityStore#seek(float, float, float)} moves this entity
+	 */
+	protected void setSeeking(boolean seeking) {
+		EntityStore.seeking[slot] = seeking;
+	}
+	
+	/** @return <code>true</code> once killed, including after {@link #free()} */
 	public boolean isDead() {
-		return !alive;
+		return slot < 0 || !EntityStore.alive[slot];
 	}
 	
+	/**
+	 * Marks this entity dead. It is removed at the end of the step, and stops hearing clicks now
+	 */
 	public void kill() {
-		alive = false;
+		EntityStore.alive[slot] = false;
+		if(this instanceof ClickListener)
+			ClickListener.removeFromCallback((ClickListener) this, Mode.PLAY);
+	}
+	
+	/**
+	 * Gives up this entity's slot in the {@link EntityStore}. Call once it is taken out of the <code>list</code>; the entity can't be used after
+	 */
+	public void free() {
+		EntityStore.remove(slot);
+		slot = -1;
+	}
+	
+	void setSlot(int slot) {
+		this.slot = slot;
 	}
 	
 }
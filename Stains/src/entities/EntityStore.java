@@ -0,0 +1,204 @@
+package entities;
+
+import java.util.Arrays;
+
+import util.IntList;
+import util.SpatialHash;
+
+/**
+ * Transforms, speeds and flags of every {@link Entity}, kept in one primitive array per field instead of in the objects.
+ * An entity is a view over its slot here. Behavior that every entity of a kind shares, like stains seeking the player,
+ * runs as one loop over the arrays with {@link #seek(float, float, float)} rather than as a virtual call per entity.
+ * Slots stay packed: removing an entity moves the last one into its slot. Simulation thread only
+ */
+public class EntityStore {
+
+	private static final int INITIAL_CAPACITY = 256;
+	/** seekers closer than this to each other steer apart, in pixels */
+	public static final float SEPARATION_RADIUS = 48.0f;
+	/** how hard seekers steer apart compared to toward the target */
+	public static final float SEPARATION_WEIGHT = 1.5f;
+	/** whether {@link #seek(float, float, float)} steers seekers apart. Off it is a straight beeline, e.g. to compare against */
+	public static boolean separation = true;
+
+	private static int count = 0;
+	static float[] x = new float[INITIAL_CAPACITY];
+	static float[] y = new float[INITIAL_CAPACITY];
+	static float[] rot = new float[INITIAL_CAPACITY];
+	static float[] lastX = new float[INITIAL_CAPACITY];
+	static float[] lastY = new float[INITIAL_CAPACITY];
+	static float[] lastRot = new float[INITIAL_CAPACITY];
+	/** in pixels per second */
+	static float[] speed = new float[INITIAL_CAPACITY];
+	static boolean[] alive = new boolean[INITIAL_CAPACITY];
+	/** whether the slot moves toward the target of {@link #seek(float, float, float)} */
+	static boolean[] seeking = new boolean[INITIAL_CAPACITY];
+	// unit direction of the current seek, 0 for slots that stay put. Scratch for seek()
+	private static float[] dirX = new float[INITIAL_CAPACITY];
+	private static float[] dirY = new float[INITIAL_CAPACITY];
+	private static Entity[] owners = new Entity[INITIAL_CAPACITY];
+	private static SpatialHash neighbors = new SpatialHash(SEPARATION_RADIUS);
+	private static IntList nearby = new IntList(); // scratch for seek()
+
+	/**
+	 * @return slot for <strong>owner</strong>, starting where it is and not moving
+	 */
+	static int add(Entity owner, float x, float y, float rot) {
+		if(count == owners.length)
+			grow(count * 2);
+		int slot = count++;
+		EntityStore.x[slot] = EntityStore.lastX[slot] = x;
+		EntityStore.y[slot] = EntityStore.lastY[slot] = y;
+		EntityStore.rot[slot] = EntityStore.lastRot[slot] = rot;
+		speed[slot] = 0;
+		alive[slot] = true;
+		seeking[slot] = false;
+		owners[slot] = owner;
+		return slot;
+	}
+
+	/**
+	 * Frees <strong>slot</strong> by moving the last entity into it
+	 */
+	static void remove(int slot) {
+		int last = --count;
+		if(slot != last) {
+			x[slot] = x[last];
+			y[slot] = y[last];
+			rot[slot] = rot[last];
+			lastX[slot] = lastX[last];
+			lastY[slot] = lastY[last];
+			lastRot[slot] = lastRot[last];
+			speed[slot] = speed[last];
+			alive[slot] = alive[last];
+			seeking[slot] = seeking[last];
+			owners[slot] = owners[last];
+			owners[slot].setSlot(slot);
+		}
+		owners[last] = null;
+	}
+
+	/**
+	 * Remembers every transform as where its entity is coming from. Call before each simulation step
+	 */
+	public static void storePrevious() {
+		System.arraycopy(x, 0, lastX, 0, count);
+		System.arraycopy(y, 0, lastY, 0, count);
+		System.arraycopy(rot, 0, lastRot, 0, count);
+	}
+
+	/**
+	 * Turns every living seeking entity toward a target and moves it by its speed for one step, steering away from
+	 * other seekers within {@link #SEPARATION_RADIUS} so they don't pile up on one spot, unless {@link #separation} is off.
+	 * The direction is worked out once from the offset instead of going through an angle and back
+	 * @param targetX Where to move toward
+	 * @param targetY Where to move toward
+	 * @param delta Length of the step in seconds
+	 */
+	public static void seek(float targetX, float targetY, float delta) {
+		if(separation)
+			neighbors.build(x, y, count);
+		for(int n = 0; n < count; n++) {
+			int i = separation ? neighbors.indexAt(n) : n; // in cell order, so the neighbors looked at stay in cache
+			if(seeking[i] && alive[i]) {
+				float dx = targetX - x[i];
+				float dy = targetY - y[i];
+				rot[i] = atan2(dy, dx);
+				float length = (float) Math.sqrt(dx * dx + dy * dy);
+				float scale = length > 0 ? 1 / length : 0;
+				float steerX = dx * scale;
+				float steerY = dy * scale;
+
+				if(separation) {
+					nearby.clear();
+					neighbors.queryRadius(x[i], y[i], SEPARATION_RADIUS, nearby);
+					float pushX = 0, pushY = 0;
+					for(int k = 0; k < nearby.size(); k++) {
+						int j = nearby.get(k);
+						if(j == i || !seeking[j] || !alive[j])
+							continue;
+						float awayX = x[i] - x[j];
+						float awayY = y[i] - y[j];
+						float distance = (float) Math.sqrt(awayX * awayX + awayY * awayY);
+						if(distance == 0) { // on the same spot, like stains from one spawner. Split them along a direction picked by the pair
+							double angle = (Math.min(i, j) * 0.618034 + Math.max(i, j) * 0.381966) * Math.PI * 2;
+							float sign = i < j ? 1 : -1;
+							pushX += (float) Math.cos(angle) * sign;
+							pushY += (float) Math.sin(angle) * sign;
+						} else { // stronger the closer it is
+							float weight = (1 - distance / SEPARATION_RADIUS) / distance;
+							pushX += awayX * weight;
+							pushY += awayY * weight;
+						}
+					}
+					steerX += pushX * SEPARATION_WEIGHT;
+					steerY += pushY * SEPARATION_WEIGHT;
+					float steer = (float) Math.sqrt(steerX * steerX + steerY * steerY);
+					if(steer > 1) { // never faster than its speed
+						steerX /= steer;
+						steerY /= steer;
+					}
+				}
+				dirX[i] = steerX;
+				dirY[i] = steerY;
+			} else {
+				dirX[i] = 0;
+				dirY[i] = 0;
+			}
+		}
+		// no branches or calls, so the JIT is free to unroll and vectorize it
+		for(int i = 0; i < count; i++) {
+			float step = speed[i] * delta;
+			x[i] += dirX[i] * step;
+			y[i] += dirY[i] * step;
+		}
+	}
+
+	/**
+	 * Polynomial atan2, within 0.0003 radians of {@link Math#atan2(double, double)} and several times faster.
+	 * Only used for rotations that are drawn, movement goes by the offset itself
+	 */
+	private static float atan2(float y, float x) {
+		float absX = Math.abs(x);
+		float absY = Math.abs(y);
+		float a = Math.min(absX, absY) / Math.max(Math.max(absX, absY), Float.MIN_NORMAL);
+		float s = a * a;
+		float r = ((-0.0464964749f * s + 0.15931422f) * s - 0.327622764f) * s * a + a;
+		if(absY > absX)
+			r = (float) (Math.PI / 2) - r;
+		if(x < 0)
+			r = (float) Math.PI - r;
+		return y < 0 ? -r : r;
+	}
+
+	/**
+	 * @return positions of every slot as of the start of the last {@link #seek(float, float, float)} with {@link #separation} on,
+	 *         for finding entities near each other
+	 */
+	public static SpatialHash getNeighbors() {
+		return neighbors;
+	}
+
+	/**
+	 * @return number of entities in the store
+	 */
+	public static int size() {
+		return count;
+	}
+
+	private static void grow(int capacity) {
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		rot = Arrays.copyOf(rot, capacity);
+		lastX = Arrays.copyOf(lastX, capacity);
+		lastY = Arrays.copyOf(lastY, capacity);
+		lastRot = Arrays.copyOf(lastRot, capacity);
+		speed = Arrays.copyOf(speed, capacity);
+		alive = Arrays.copyOf(alive, capacity);
+		seeking = Arrays.copyOf(seeking, capacity);
+		dirX = Arrays.copyOf(dirX, capacity);
+		dirY = Arrays.copyOf(dirY, capacity);
+		owners = Arrays.copyOf(owners, capacity);
+	}
+
+}
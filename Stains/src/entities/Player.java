@@ -21,7 +21,7 @@ public class Player extends Entity implements ClickListener {
 	
 	public Player(float x, float y, float scale, Texture texture) {
 		super(x, y, 0, 0, 0, scale);
-		this.moveSpeed = 200;
+		this.setMoveSpeed(200);
 		this.setActiveTexture(texture);
 		this.camera = new Camera(x, y);
 		ClickListener.addToCallback(this, Mode.PLAY);
@@ -55,7 +55,7 @@ public class Player extends Entity implements ClickListener {
 	}
 	
 	private void checkMouse() {
-		rot = (float) (Math.atan2(Mouse.y - Game.HEIGHT / 2, Mouse.x - Game.WIDTH / 2));
+		setRot((float) (Math.atan2(Mouse.y - Game.HEIGHT / 2, Mouse.x - Game.WIDTH / 2)));
 	}
 
 	@Override
@@ -68,8 +68,11 @@ public class Player extends Entity implements ClickListener {
 		
 	}
 	
+	/**
+	 * @return camera centered where the player is drawn this frame, so the player doesn't shake between simulation steps
+	 */
 	public Camera getCamera() {
-		camera.setMouseXY(x, y);
+		camera.setMouseXY(getDrawX(), getDrawY());
 		return camera;
 	}
 	
@@ -8,8 +8,9 @@ import gl.Texture;
 import util.Animation;
 import util.ClickListener;
 import util.Mouse;
+import util.SpatialClickListener;
 
-public class Stain extends Entity implements ClickListener {
+public class Stain extends Entity implements SpatialClickListener {
 	
 	/** list purely for convenience. Holds all Stains in the Game */
 	public static List<Stain> list = new ArrayList<>();
@@ -19,7 +20,8 @@ public class Stain extends Entity implements ClickListener {
 	
 	public Stain(float x, float y, float scale, Texture aliveTexture, Animation deathAnimation) { // TODO death sound
 		super(x, y, 0.0f, 0.0f, 0.0f, scale);
-		this.moveSpeed = 30.0f; // pixels / second
+		setMoveSpeed(30.0f); // pixels / second
+		setSeeking(true); // moved toward the player by EntityStore.seek
 		this.aliveTexture = aliveTexture;
 		this.deathAnimation = deathAnimation;
 		setActiveTexture(aliveTexture);
@@ -27,11 +29,10 @@ public class Stain extends Entity implements ClickListener {
 		
 	}
 
+	/** Turning toward the player, keeping clear of other stains and moving are done for all stains at once, in {@link EntityStore#seek(float, float, float)} */
 	@Override
 	public void update() {
-		if(alive) {
-			rot = angleTo(Player.getInstance());
-			move();
+		if(!isDead()) {
 			if(deathAnimation.isFinished()) {
 				kill();
 			}
@@ -40,7 +41,7 @@ public class Stain extends Entity implements ClickListener {
 	
 	@Override
 	public void handleClick(int button) {
-		if(alive) {
+		if(!isDead()) {
 			if(button == Mouse.LEFT) {
 				setActiveTexture(deathAnimation);
 				deathAnimation.start();
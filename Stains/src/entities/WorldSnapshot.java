@@ -0,0 +1,183 @@
+package entities;
+
+import java.util.Arrays;
+import java.util.List;
+
+import constants.Shaders;
+import gl.Renderable;
+import gl.Renderer;
+import objects.GameObject;
+import objects.Map;
+import objects.Surface;
+import util.Bounds;
+import util.Camera;
+
+/**
+ * What the world looked like after a simulation step: how every visible entity is drawn, where it was one step earlier,
+ * and the map. Filled on the simulation thread and handed to the render thread through a {@link util.TripleBuffer},
+ * after which it is only read, so drawing never has to touch an entity the simulation is updating
+ */
+public class WorldSnapshot {
+
+	private int count;
+	private float[] x = new float[0];
+	private float[] y = new float[0];
+	private float[] rot = new float[0];
+	private float[] lastX = new float[0];
+	private float[] lastY = new float[0];
+	private float[] lastRot = new float[0];
+	private float[] scale = new float[0];
+	private float[] brightScale = new float[0];
+	private float[] radius = new float[0];
+	private Surface[] surfaces = new Surface[0];
+	private Sprite[] sprites = new Sprite[0];
+	private Sprite[] instances = new Sprite[0];
+	/** index of the player, -1 if there is none */
+	private int player;
+	private Map map;
+	/** System.nanoTime() of the step this was taken after */
+	private long time;
+	/** between the previous step and this one, set by the reader */
+	private float alpha;
+	private Bounds bounds = new Bounds(); // scratch for culling, render thread only
+
+	/**
+	 * Copies everything that is drawn from <strong>entities</strong>. Simulation thread only
+	 */
+	public void capture(List<Entity> entities, Map map, long time) {
+		this.map = map;
+		this.time = time;
+		this.player = -1;
+		this.count = 0;
+		if(x.length < entities.size())
+			grow(Math.max(entities.size(), x.length * 2));
+		for(Entity e : entities) {
+			Surface surface = e.getActiveTexture();
+			if(surface == null)
+				continue; // nothing to draw
+			int i = count++;
+			x[i] = e.getX();
+			y[i] = e.getY();
+			rot[i] = e.getRot();
+			lastX[i] = e.getLastX();
+			lastY[i] = e.getLastY();
+			lastRot[i] = e.getLastRot();
+			scale[i] = e.getTrueScale();
+			brightScale[i] = e.brightScale;
+			Bounds b = e.getBounds();
+			radius[i] = (b.maxX - b.minX) / 2;
+			surfaces[i] = surface.current();
+			if(e instanceof Player)
+				player = i;
+		}
+	}
+
+	/**
+	 * Works out how far between the last two steps to draw. Render thread only
+	 * @param now System.nanoTime() of the frame
+	 * @param step Length of a simulation step in nanoseconds
+	 */
+	public void setTime(long now, long step) {
+		alpha = Math.max(0, Math.min(1, (now - time) / (float) step));
+	}
+
+	public int size() {
+		return count;
+	}
+
+	public int getPlayer() {
+		return player;
+	}
+
+	public Map getMap() {
+		return map;
+	}
+
+	public float getDrawX(int i) {
+		return lastX[i] + (x[i] - lastX[i]) * alpha;
+	}
+
+	public float getDrawY(int i) {
+		return lastY[i] + (y[i] - lastY[i]) * alpha;
+	}
+
+	public float getDrawRot(int i) {
+		return GameObject.lerpAngle(lastRot[i], rot[i], alpha);
+	}
+
+	/**
+	 * @return <code>true</code> if entity <strong>i</strong> could be in view of <strong>camera</strong>
+	 */
+	public boolean isVisible(int i, Camera camera) {
+		return camera.isVisible(bounds.setAround(getDrawX(i), getDrawY(i), radius[i]));
+	}
+
+	/**
+	 * @return entity <strong>i</strong> as something that can be submitted to a {@link gl.RenderQueue}
+	 */
+	public Renderable getSprite(int i) {
+		return sprites[i];
+	}
+
+	/**
+	 * @return like {@link #getSprite(int)}, but drawn through {@link Renderer#INSTANCES}
+	 */
+	public Renderable getInstance(int i) {
+		return instances[i];
+	}
+
+	private void grow(int size) {
+		int old = x.length;
+		x = Arrays.copyOf(x, size);
+		y = Arrays.copyOf(y, size);
+		rot = Arrays.copyOf(rot, size);
+		lastX = Arrays.copyOf(lastX, size);
+		lastY = Arrays.copyOf(lastY, size);
+		lastRot = Arrays.copyOf(lastRot, size);
+		scale = Arrays.copyOf(scale, size);
+		brightScale = Arrays.copyOf(brightScale, size);
+		radius = Arrays.copyOf(radius, size);
+		surfaces = Arrays.copyOf(surfaces, size);
+		sprites = Arrays.copyOf(sprites, size);
+		instances = Arrays.copyOf(instances, size);
+		for(int i = old; i < size; i++) {
+			sprites[i] = new Sprite(i, false);
+			instances[i] = new Sprite(i, true);
+		}
+	}
+
+	/**
+	 * One entity of the snapshot, drawn through {@link Renderer#SPRITES} or {@link Renderer#INSTANCES}
+	 */
+	private class Sprite implements Renderable {
+
+		private final int index;
+		private final boolean instanced;
+
+		Sprite(int index, boolean instanced) {
+			this.index = index;
+			this.instanced = instanced;
+		}
+
+		@Override
+		public void render(Camera camera) {
+			Renderer.setCamera(camera);
+			if(instanced)
+				Renderer.INSTANCES.draw(surfaces[index], getDrawX(index), getDrawY(index), getDrawRot(index), scale[index], brightScale[index]);
+			else
+				Renderer.SPRITES.draw(surfaces[index], getDrawX(index), getDrawY(index), getDrawRot(index), scale[index], brightScale[index]);
+		}
+
+		@Override
+		public int getSortShader() {
+			return instanced ? Shaders.TEXTURE_INSTANCED.getId() : Shaders.TEXTURE.getId();
+		}
+
+		@Override
+		public int getSortTexture() {
+			return surfaces[index].getId();
+		}
+
+	}
+
+}
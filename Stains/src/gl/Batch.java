@@ -0,0 +1,11 @@
+package gl;
+
+/**
+ * Something which collects draws and submits them all at once. Only one Batch is active at a time, see {@link Renderer#begin(Batch)}
+ */
+public interface Batch {
+	
+	/** Submits everything collected so far to OpenGL and empties the batch */
+	public void flush();
+	
+}
@@ -0,0 +1,210 @@
+package gl;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL13.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL30.*;
+
+import java.util.Arrays;
+
+/**
+ * Remembers what is bound so that binding something which is already current never reaches the driver.
+ * Every bind in the <code>gl</code> package goes through here. Counts issued and skipped calls per frame
+ */
+public class GLState {
+	
+	private static final int UNKNOWN = -1;
+	private static final int MAX_UNITS = 16;
+	
+	private static final int TARGET_2D = 0;
+	private static final int TARGET_2D_ARRAY = 1;
+	
+	private static int program = UNKNOWN;
+	private static int vertexArray = UNKNOWN;
+	private static int arrayBuffer = UNKNOWN;
+	/** the element buffer is part of the VAO, so it is remembered per VAO id */
+	private static int[] elementBuffers = new int[64];
+	private static int activeUnit = UNKNOWN;
+	private static int[][] textures = new int[2][MAX_UNITS];
+	private static int framebuffer = UNKNOWN;
+	private static int renderbuffer = UNKNOWN;
+	
+	private static int issued = 0;
+	private static int skipped = 0;
+	private static int lastIssued = 0;
+	private static int lastSkipped = 0;
+	
+	static {
+		Arrays.fill(elementBuffers, UNKNOWN);
+		for(int[] unit : textures)
+			Arrays.fill(unit, UNKNOWN);
+	}
+	
+	public static void useProgram(int id) {
+		if(program == id) {
+			skipped++;
+			return;
+		}
+		glUseProgram(id);
+		program = id;
+		issued++;
+	}
+	
+	public static void bindVertexArray(int id) {
+		if(vertexArray == id) {
+			skipped++;
+			return;
+		}
+		glBindVertexArray(id);
+		vertexArray = id;
+		issued++;
+	}
+	
+	public static void bindBuffer(int target, int id) {
+		if(target == GL_ARRAY_BUFFER) {
+			if(arrayBuffer == id) {
+				skipped++;
+				return;
+			}
+			arrayBuffer = id;
+		} else if(target == GL_ELEMENT_ARRAY_BUFFER && vertexArray != UNKNOWN) {
+			if(vertexArray >= elementBuffers.length) {
+				int oldLength = elementBuffers.length;
+				elementBuffers = Arrays.copyOf(elementBuffers, Math.max(vertexArray + 1, oldLength * 2));
+				Arrays.fill(elementBuffers, oldLength, elementBuffers.length, UNKNOWN);
+			}
+			if(elementBuffers[vertexArray] == id) {
+				skipped++;
+				return;
+			}
+			elementBuffers[vertexArray] = id;
+		} // any other target isn't tracked
+		glBindBuffer(target, id);
+		issued++;
+	}
+	
+	/**
+	 * Binds a texture to a texture unit, only changing the active unit if it has to
+	 * @param unit Texture unit, starting from 0
+	 * @param target <code>GL_TEXTURE_2D</code> or <code>GL_TEXTURE_2D_ARRAY</code>
+	 */
+	public static void bindTexture(int unit, int target, int id) {
+		int[] bound = textures[targetIndex(target)];
+		if(bound[unit] == id) {
+			skipped++;
+			return;
+		}
+		activeTexture(unit);
+		glBindTexture(target, id);
+		bound[unit] = id;
+		issued++;
+	}
+	
+	/** Binds a texture to whichever unit is active */
+	public static void bindTexture(int target, int id) {
+		bindTexture(activeUnit == UNKNOWN ? 0 : activeUnit, target, id);
+	}
+	
+	private static void activeTexture(int unit) {
+		if(activeUnit == unit) {
+			skipped++;
+			return;
+		}
+		glActiveTexture(GL_TEXTURE0 + unit);
+		activeUnit = unit;
+		issued++;
+	}
+	
+	public static void bindFramebuffer(int id) {
+		if(framebuffer == id) {
+			skipped++;
+			return;
+		}
+		glBindFramebuffer(GL_FRAMEBUFFER, id);
+		framebuffer = id;
+		issued++;
+	}
+	
+	public static void bindRenderbuffer(int id) {
+		if(renderbuffer == id) {
+			skipped++;
+			return;
+		}
+		glBindRenderbuffer(GL_RENDERBUFFER, id);
+		renderbuffer = id;
+		issued++;
+	}
+	
+	// deleting an object unbinds it, and the id may be handed out again, so it must be forgotten
+	
+	public static void deleteProgram(int id) {
+		glDeleteProgram(id);
+		if(program == id)
+			program = UNKNOWN;
+	}
+	
+	public static void deleteVertexArray(int id) {
+		glDeleteVertexArrays(id);
+		if(vertexArray == id)
+			vertexArray = UNKNOWN;
+		if(id < elementBuffers.length)
+			elementBuffers[id] = UNKNOWN;
+	}
+	
+	public static void deleteBuffer(int id) {
+		glDeleteBuffers(id);
+		if(arrayBuffer == id)
+			arrayBuffer = UNKNOWN;
+		for(int i = 0; i < elementBuffers.length; i++)
+			if(elementBuffers[i] == id)
+				elementBuffers[i] = UNKNOWN;
+	}
+	
+	public static void deleteTexture(int id) {
+		glDeleteTextures(id);
+		for(int[] unit : textures)
+			for(int i = 0; i < unit.length; i++)
+				if(unit[i] == id)
+					unit[i] = UNKNOWN;
+	}
+	
+	public static void deleteFramebuffer(int id) {
+		glDeleteFramebuffers(id);
+		if(framebuffer == id)
+			framebuffer = UNKNOWN;
+	}
+	
+	public static void deleteRenderbuffer(int id) {
+		glDeleteRenderbuffers(id);
+		if(renderbuffer == id)
+			renderbuffer = UNKNOWN;
+	}
+	
+	private static int targetIndex(int target) {
+		switch(target) {
+		case GL_TEXTURE_2D: return TARGET_2D;
+		case GL_TEXTURE_2D_ARRAY: return TARGET_2D_ARRAY;
+		default: throw new IllegalArgumentException("GLState doesn't track texture target " + target);
+		}
+	}
+	
+	/** Stores this frame's counters so they can be read with {@link #getIssued()} and {@link #getSkipped()}, then resets them */
+	public static void endFrame() {
+		lastIssued = issued;
+		lastSkipped = skipped;
+		issued = 0;
+		skipped = 0;
+	}
+	
+	/** @return binds that reached the driver last frame */
+	public static int getIssued() {
+		return lastIssued;
+	}
+	
+	/** @return binds that were already current last frame and were skipped */
+	public static int getSkipped() {
+		return lastSkipped;
+	}
+	
+}
@@ -0,0 +1,113 @@
+package gl;
+
+import static org.lwjgl.stb.STBImage.*;
+import static org.lwjgl.system.MemoryUtil.*;
+import static org.lwjgl.util.xxhash.XXHash.XXH64;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+
+import org.lwjgl.system.MemoryStack;
+
+import util.Log;
+
+/**
+ * Decoded RGBA pixels of an image, top row first, ready to be given to OpenGL.
+ * Images from {@link #load(String)} live off heap and must be released with {@link #free()}
+ */
+public class ImageData {
+	
+	private int width;
+	private int height;
+	private ByteBuffer pixels;
+	/** who allocated the pixels, and so who they have to be handed back to */
+	private Memory memory;
+	
+	public ImageData(int width, int height, ByteBuffer pixels) {
+		this.width = width;
+		this.height = height;
+		this.pixels = pixels;
+		this.memory = Memory.HEAP;
+	}
+	
+	/**
+	 * Wraps pixels allocated with <code>memAlloc</code>. They are freed along with the image
+	 */
+	static ImageData allocated(int width, int height, ByteBuffer pixels) {
+		ImageData image = new ImageData(width, height, pixels);
+		image.memory = Memory.MALLOC;
+		return image;
+	}
+	
+	/**
+	 * Decodes an image file straight into native memory, or takes it from the {@link TextureCache} if the file hasn't changed
+	 * since it was last decoded. Safe to call from any thread
+	 * @param path Path to the file including <strong>res/textures</strong>
+	 * @return the decoded image or <code>null</code> if it couldn't be read
+	 */
+	public static ImageData load(String path) {
+		ByteBuffer file = null;
+		try(FileChannel channel = FileChannel.open(Paths.get(path))) {
+			file = memAlloc((int) channel.size());
+			while(file.hasRemaining() && channel.read(file) != -1);
+			file.flip();
+		} catch (IOException e) {
+			memFree(file);
+			Log.err("Cannot open file: " + path);
+			return null;
+		}
+		
+		try(MemoryStack stack = MemoryStack.stackPush()) {
+			long hash = XXH64(file, 0);
+			ImageData cached = TextureCache.get(path, hash);
+			if(cached != null)
+				return cached;
+			
+			IntBuffer width = stack.mallocInt(1);
+			IntBuffer height = stack.mallocInt(1);
+			IntBuffer channels = stack.mallocInt(1);
+			ByteBuffer pixels = stbi_load_from_memory(file, width, height, channels, 4); // always rgba, whatever the file has
+			if(pixels == null) {
+				Log.err("Cannot decode " + path + ": " + stbi_failure_reason());
+				return null;
+			}
+			ImageData image = new ImageData(width.get(0), height.get(0), pixels);
+			image.memory = Memory.STB;
+			TextureCache.put(path, hash, image);
+			return image;
+		} finally {
+			memFree(file);
+		}
+	}
+	
+	/** Releases the pixels. The image can't be used afterwards */
+	public void free() {
+		if(pixels != null) {
+			if(memory == Memory.STB)
+				stbi_image_free(pixels);
+			else if(memory == Memory.MALLOC)
+				memFree(pixels);
+		}
+		pixels = null;
+	}
+	
+	public int getWidth() {
+		return width;
+	}
+	
+	public int getHeight() {
+		return height;
+	}
+	
+	public ByteBuffer getPixels() {
+		return pixels;
+	}
+	
+	private enum Memory {
+		HEAP, STB, MALLOC
+	}
+
+}
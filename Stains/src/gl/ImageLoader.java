@@ -0,0 +1,92 @@
+package gl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import util.Log;
+
+/**
+ * Decodes images in parallel. Images requested between {@link #begin()} and {@link #end()} are decoded on a pool of
+ * worker threads while the caller carries on; {@link #end()} then hands them to their callbacks on the calling thread,
+ * in the order they were requested, as each one finishes. Only the upload to GL is left on the render thread.
+ * Outside of a batch images are decoded and handed over right away
+ */
+public class ImageLoader {
+
+	/** receives a decoded image on the render thread. <strong>image</strong> is <code>null</code> if it couldn't be read */
+	public interface Callback {
+		void onLoaded(ImageData image);
+	}
+
+	private static ExecutorService pool;
+	private static List<Request> requests = new ArrayList<>();
+	private static long batchStart;
+	private static int threads;
+
+	/** Images requested after this call are decoded in the background */
+	public static void begin() {
+		threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1); // leave a core for uploading
+		AtomicInteger count = new AtomicInteger();
+		pool = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "image-decoder-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		batchStart = System.nanoTime();
+		TextureCache.resetStats();
+	}
+
+	/**
+	 * Decodes the image at <strong>path</strong> and hands it to <strong>callback</strong>, now or during {@link #end()}
+	 */
+	public static void load(String path, Callback callback) {
+		if(pool == null) {
+			callback.onLoaded(ImageData.load(path));
+			return;
+		}
+		requests.add(new Request(pool.submit(() -> ImageData.load(path)), callback, path));
+	}
+
+	/** Waits for every image requested since {@link #begin()}, handing each to its callback as soon as it is ready */
+	public static void end() {
+		if(pool == null)
+			return;
+		for(Request request : requests) {
+			ImageData image = null;
+			try {
+				image = request.image.get();
+			} catch (ExecutionException e) {
+				Log.err("Cannot decode " + request.path);
+				e.getCause().printStackTrace();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				Log.err("Interrupted while decoding " + request.path);
+			}
+			request.callback.onLoaded(image);
+		}
+		pool.shutdown();
+		pool = null;
+		// a cold start decodes everything, a warm one should come almost entirely from the cache
+		Log.log("Loaded " + requests.size() + " images on " + threads + " threads in " + (System.nanoTime() - batchStart) / 1000000 + " ms ("
+				+ TextureCache.getHits() + " cached, " + TextureCache.getMisses() + " decoded)");
+		requests.clear();
+	}
+
+	private static class Request {
+		Future<ImageData> image;
+		Callback callback;
+		String path;
+
+		Request(Future<ImageData> image, Callback callback, String path) {
+			this.image = image;
+			this.callback = callback;
+			this.path = path;
+		}
+	}
+
+}
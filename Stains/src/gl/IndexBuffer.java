@@ -15,15 +15,15 @@ public class IndexBuffer {
 	}
 	
 	public void bind() {
-		glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, id);
+		GLState.bindBuffer(GL_ELEMENT_ARRAY_BUFFER, id);
 	}
 	
 	public void unbind() {
-		glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+		GLState.bindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
 	}
 	
 	public void delete() {
-		glDeleteBuffers(id);
+		GLState.deleteBuffer(id);
 	}
 	
 }
@@ -0,0 +1,132 @@
+package gl;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL31.*;
+
+import java.nio.FloatBuffer;
+
+import org.lwjgl.BufferUtils;
+
+import constants.Shaders;
+import objects.Rect;
+import objects.Surface;
+
+/**
+ * Groups sprites by texture (atlas page or animation) and draws each group with one <code>glDrawElementsInstanced</code> call off the {@link Rect} quad.
+ * Only the per-instance transform is written on the CPU, the model matrix is built in the vertex shader
+ */
+public class InstanceBatch implements Batch {
+	
+	private static final int MAX_GROUPS = 16;
+	private static final int INITIAL_INSTANCES = 1024;
+	private static final int FLOATS_PER_INSTANCE = 14; // x, y, rot, scale, offsetX, offsetY, width, height, u0, v0, u1, v1, layer, brightScale
+	private static final int TEXTURE_SLOT = 0;
+	private static final int ARRAY_SLOT = 1;
+	
+	private VertexArray vao;
+	private VertexBuffer vbo;
+	private Shader program;
+	private Uniform textureSlot;
+	private Uniform arraySlot;
+	private int capacity;
+	
+	private Surface[] textures;
+	private int[] textureIds;
+	private FloatBuffer[] groups;
+	private int numGroups;
+	
+	public InstanceBatch() {
+		capacity = INITIAL_INSTANCES;
+		VertexBufferFormat format = new VertexBufferFormat(2, 1); // after Rect's position and uv, advance once per instance
+		format.pushFloat(4); // x, y, rot, scale
+		format.pushFloat(4); // offsetX, offsetY, width, height
+		format.pushFloat(4); // u0, v0, u1, v1
+		format.pushFloat(1); // layer
+		format.pushFloat(1); // brightScale
+		vao = new VertexArray();
+		vao.addBuffer(Rect.vbo);
+		vbo = new VertexBuffer(capacity * FLOATS_PER_INSTANCE, format);
+		vao.addBuffer(vbo);
+		Rect.ibo.bind();
+		vao.unbind();
+		
+		program = Shaders.TEXTURE_INSTANCED;
+		textureSlot = program.getUniform("u_Texture");
+		arraySlot = program.getUniform("u_TextureArray");
+		textures = new Surface[MAX_GROUPS];
+		textureIds = new int[MAX_GROUPS];
+		groups = new FloatBuffer[MAX_GROUPS];
+		numGroups = 0;
+	}
+	
+	/**
+	 * Adds an instance of <strong>surface</strong>. Takes the same arguments as {@link SpriteBatch#draw(Surface, float, float, float, float, float)}
+	 */
+	public void draw(Surface surface, float x, float y, float rot, float trueScale, float brightScale) {
+		Renderer.begin(this);
+		FloatBuffer group = getGroup(surface);
+		group.put(x).put(y).put(rot - surface.getOffsetRot()).put(trueScale);
+		group.put(surface.getOffsetX()).put(surface.getOffsetY()).put(surface.getWidth()).put(surface.getHeight());
+		group.put(surface.getU0()).put(surface.getV0()).put(surface.getU1()).put(surface.getV1());
+		group.put(surface.getLayer()).put(brightScale);
+	}
+	
+	/** 
+	 * finds the group holding the GL texture of <strong>texture</strong>, making room for one more instance in it.
+	 * Every frame of an animation lands in the same group
+	 */
+	private FloatBuffer getGroup(Surface texture) {
+		int i = 0;
+		while(i < numGroups && textureIds[i] != texture.getId())
+			i++;
+		if(i == numGroups) {
+			if(numGroups == MAX_GROUPS) { // out of groups, draw what we have and start over
+				flush();
+				i = 0;
+			}
+			textures[i] = texture;
+			textureIds[i] = texture.getId();
+			if(groups[i] == null)
+				groups[i] = BufferUtils.createFloatBuffer(INITIAL_INSTANCES * FLOATS_PER_INSTANCE);
+			numGroups++;
+		}
+		if(groups[i].remaining() < FLOATS_PER_INSTANCE) { // grow the group. Only happens until the largest crowd has been seen once
+			FloatBuffer bigger = BufferUtils.createFloatBuffer(groups[i].capacity() * 2);
+			groups[i].flip();
+			bigger.put(groups[i]);
+			groups[i] = bigger;
+		}
+		return groups[i];
+	}
+	
+	@Override
+	public void flush() {
+		if(numGroups == 0)
+			return;
+		program.bind();
+		textureSlot.set(TEXTURE_SLOT);
+		arraySlot.set(ARRAY_SLOT);
+		vao.bind();
+		for(int i = 0; i < numGroups; i++) {
+			FloatBuffer group = groups[i];
+			group.flip();
+			int instances = group.remaining() / FLOATS_PER_INSTANCE;
+			if(instances > capacity) { // the instance buffer has to grow with the group
+				capacity = Math.max(instances, capacity * 2);
+				vbo.resize(capacity * FLOATS_PER_INSTANCE);
+			}
+			textures[i].bind(textures[i].getLayer() < 0 ? TEXTURE_SLOT : ARRAY_SLOT);
+			vbo.setData(group);
+			glDrawElementsInstanced(GL_TRIANGLES, Rect.ibo.length, GL_UNSIGNED_INT, 0, instances);
+			group.clear();
+			textures[i] = null;
+		}
+		numGroups = 0;
+	}
+	
+	public void delete() {
+		vao.delete();
+		vbo.delete();
+	}
+	
+}
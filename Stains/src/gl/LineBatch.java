@@ -0,0 +1,90 @@
+package gl;
+
+import static org.lwjgl.opengl.GL11.*;
+
+import java.nio.FloatBuffer;
+
+import org.joml.Vector4f;
+
+import constants.Shaders;
+
+/**
+ * Collects colored lines straight into a {@link StreamingVertexBuffer}. Lines are tessellated into triangles by {@link LineTessellator},
+ * so lines of every width go out in a single draw. The batch is flushed when it is full, another {@link Batch} begins, or at the end of the frame
+ */
+public class LineBatch implements Batch {
+	
+	private static final int MAX_VERTICES = 8192 * LineTessellator.SEGMENT_VERTICES;
+	private static final int FLOATS_PER_VERTEX = LineTessellator.FLOATS_PER_VERTEX; // x, y, r, g, b, a
+	
+	private VertexArray vao;
+	private StreamingVertexBuffer vbo;
+	private FloatBuffer vertices; // region of vbo being written, null when nothing is batched
+	private Shader program;
+	private int count; // vertices
+	
+	public LineBatch() {
+		VertexBufferFormat format = new VertexBufferFormat();
+		format.pushFloat(2); // x, y
+		format.pushFloat(4); // r, g, b, a
+		vao = new VertexArray();
+		vbo = new StreamingVertexBuffer(MAX_VERTICES * FLOATS_PER_VERTEX, 4, format);
+		vao.addBuffer(vbo);
+		vao.unbind();
+		
+		vertices = null;
+		program = Shaders.LINE;
+		count = 0;
+	}
+	
+	/**
+	 * Adds a line to the batch. Coordinates are in world space; call {@link Renderer#setCamera(util.Camera)} first
+	 * @param width Width of the line in pixels
+	 * @param color Color in normalized RGBA
+	 */
+	public void draw(float x1, float y1, float x2, float y2, float width, Vector4f color) {
+		reserve(LineTessellator.SEGMENT_VERTICES);
+		count += LineTessellator.segment(vertices, x1, y1, x2, y2, width, color);
+	}
+	
+	/**
+	 * Adds a connected line through <strong>pointCount</strong> x, y pairs of <strong>points</strong>, with joins at the inner points
+	 */
+	public void drawPolyline(float[] points, int pointCount, float width, Vector4f color) {
+		int needed = LineTessellator.maxVertices(pointCount);
+		if(needed > MAX_VERTICES) { // too long for one batch, draw it a piece at a time
+			for(int i = 1; i < pointCount; i++)
+				draw(points[i * 2 - 2], points[i * 2 - 1], points[i * 2], points[i * 2 + 1], width, color);
+			return;
+		}
+		reserve(needed);
+		count += LineTessellator.polyline(vertices, points, pointCount, width, color);
+	}
+	
+	private void reserve(int needed) {
+		Renderer.begin(this);
+		if(count + needed > MAX_VERTICES)
+			flush();
+		if(vertices == null)
+			vertices = vbo.map(MAX_VERTICES * FLOATS_PER_VERTEX);
+	}
+	
+	@Override
+	public void flush() {
+		if(count == 0)
+			return;
+		int first = vbo.unmap();
+		vertices = null;
+		program.bind();
+		vao.bind();
+		glDrawArrays(GL_TRIANGLES, first, count);
+		vbo.fence(); // only now that the draw reading the region is issued
+		count = 0;
+	}
+	
+	public void delete() {
+		vao.delete();
+		vbo.delete();
+	}
+	
+}
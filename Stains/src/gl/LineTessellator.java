@@ -0,0 +1,193 @@
+package gl;
+
+import java.nio.FloatBuffer;
+
+import org.joml.Vector4f;
+
+/**
+ * Turns thick lines into triangles so they look the same on every driver and any width can share a draw call.
+ * Output is a plain <code>GL_TRIANGLES</code> list of x, y, r, g, b, a vertices, the same layout {@link LineBatch} uses.
+ * A list instead of strips lets every line in a buffer go out in one draw without restart indices
+ */
+public class LineTessellator {
+
+	public static final int FLOATS_PER_VERTEX = 6;
+	/** a miter longer than this many half widths is replaced by a round join */
+	private static final float MITER_LIMIT = 2.0f;
+	/** triangles in a full circle. Joins use the share of it they sweep */
+	private static final int ROUND_STEPS = 16;
+
+	/** vertices one segment can produce */
+	public static final int SEGMENT_VERTICES = 6;
+	/** vertices one join can produce, at worst a round join of half a circle */
+	public static final int JOIN_VERTICES = ROUND_STEPS / 2 * 3;
+	/** vertices one full circle produces */
+	public static final int CIRCLE_VERTICES = ROUND_STEPS * 3;
+
+	// scratch for the normals of the previous and current segment of a polyline
+	private static float[] normal = new float[4];
+
+	/**
+	 * @return the most vertices {@link #polyline(FloatBuffer, float[], int, float, Vector4f)} can write for <strong>pointCount</strong> points
+	 */
+	public static int maxVertices(int pointCount) {
+		if(pointCount < 2)
+			return 0;
+		return (pointCount - 1) * SEGMENT_VERTICES + (pointCount - 2) * JOIN_VERTICES;
+	}
+
+	/**
+	 * Writes a single line as two triangles with flat ends
+	 * @return number of vertices written
+	 */
+	public static int segment(FloatBuffer out, float x1, float y1, float x2, float y2, float width, Vector4f color) {
+		float hw = width / 2;
+		float dx = x2 - x1;
+		float dy = y2 - y1;
+		float len = (float) Math.sqrt(dx * dx + dy * dy);
+		if(len == 0)
+			return 0;
+		float nx = -dy / len * hw;
+		float ny = dx / len * hw;
+		putVertex(out, x1 + nx, y1 + ny, color);
+		putVertex(out, x1 - nx, y1 - ny, color);
+		putVertex(out, x2 - nx, y2 - ny, color);
+		putVertex(out, x1 + nx, y1 + ny, color);
+		putVertex(out, x2 - nx, y2 - ny, color);
+		putVertex(out, x2 + nx, y2 + ny, color);
+		return SEGMENT_VERTICES;
+	}
+
+	/**
+	 * Writes an open polyline with a miter join at every inner point, or a round join where the miter would be too long
+	 * @param points x, y pairs
+	 * @param pointCount Number of points used from <strong>points</strong>
+	 * @return number of vertices written, at most {@link #maxVertices(int)}
+	 */
+	public static int polyline(FloatBuffer out, float[] points, int pointCount, float width, Vector4f color) {
+		int written = 0;
+		float hw = width / 2;
+		boolean hasPrevious = false;
+		for(int i = 1; i < pointCount; i++) {
+			float x1 = points[i * 2 - 2], y1 = points[i * 2 - 1];
+			float x2 = points[i * 2], y2 = points[i * 2 + 1];
+			if(!normalOf(x1, y1, x2, y2, hw, normal, 2))
+				continue; // repeated point, keep the previous normal for the next join
+			if(hasPrevious)
+				written += join(out, x1, y1, normal[0], normal[1], normal[2], normal[3], hw, color);
+			written += segment(out, x1, y1, x2, y2, width, color);
+			normal[0] = normal[2];
+			normal[1] = normal[3];
+			hasPrevious = true;
+		}
+		return written;
+	}
+
+	/**
+	 * Fills the gap on the outside of a corner where a line coming in along <strong>inX, inY</strong> leaves along <strong>outX, outY</strong>
+	 * @param inX Direction the first line arrives at the corner in. Does not need to be normalized
+	 * @return number of vertices written, at most {@link #JOIN_VERTICES}
+	 */
+	public static int corner(FloatBuffer out, float x, float y, float inX, float inY, float outX, float outY, float width, Vector4f color) {
+		float hw = width / 2;
+		if(!normalOf(0, 0, inX, inY, hw, normal, 0) || !normalOf(0, 0, outX, outY, hw, normal, 2))
+			return 0;
+		return join(out, x, y, normal[0], normal[1], normal[2], normal[3], hw, color);
+	}
+
+	/**
+	 * Writes a filled circle. Used where more than two lines meet, since any gap between them is inside it
+	 * @return number of vertices written, always {@link #CIRCLE_VERTICES}
+	 */
+	public static int circle(FloatBuffer out, float x, float y, float width, Vector4f color) {
+		float hw = width / 2;
+		float step = (float) (Math.PI * 2 / ROUND_STEPS);
+		float px = x + hw, py = y;
+		for(int i = 1; i <= ROUND_STEPS; i++) {
+			float nx = x + (float) Math.cos(step * i) * hw;
+			float ny = y + (float) Math.sin(step * i) * hw;
+			putVertex(out, x, y, color);
+			putVertex(out, px, py, color);
+			putVertex(out, nx, ny, color);
+			px = nx;
+			py = ny;
+		}
+		return CIRCLE_VERTICES;
+	}
+
+	/**
+	 * @param na Normal of the incoming segment scaled to the half width
+	 * @param nb Normal of the outgoing segment scaled to the half width
+	 */
+	private static int join(FloatBuffer out, float x, float y, float nax, float nay, float nbx, float nby, float hw, Vector4f color) {
+		float cross = nax * nby - nay * nbx;
+		if(Math.abs(cross) < 1e-6f * hw * hw)
+			return 0; // straight on, the segments already meet
+		float side = cross > 0 ? -1 : 1; // turning left opens the gap on the right
+		float ax = x + nax * side, ay = y + nay * side;
+		float bx = x + nbx * side, by = y + nby * side;
+
+		// the miter is along the average normal, at the length where it meets both offset edges
+		float mx = nax + nbx;
+		float my = nay + nby;
+		float mlen = (float) Math.sqrt(mx * mx + my * my);
+		if(mlen > 1e-6f) {
+			mx /= mlen;
+			my /= mlen;
+			float cos = (mx * nax + my * nay) / hw;
+			if(cos > 1.0f / MITER_LIMIT) {
+				float miter = hw / cos;
+				float tx = x + mx * miter * side, ty = y + my * miter * side;
+				putVertex(out, x, y, color);
+				putVertex(out, ax, ay, color);
+				putVertex(out, tx, ty, color);
+				putVertex(out, x, y, color);
+				putVertex(out, tx, ty, color);
+				putVertex(out, bx, by, color);
+				return 6;
+			}
+		}
+
+		// round join: fan around the corner from one offset edge to the other the short way
+		float a0 = (float) Math.atan2(ay - y, ax - x);
+		float a1 = (float) Math.atan2(by - y, bx - x);
+		float sweep = a1 - a0;
+		if(sweep > Math.PI)
+			sweep -= Math.PI * 2;
+		else if(sweep < -Math.PI)
+			sweep += Math.PI * 2;
+		int steps = Math.max(1, Math.min(ROUND_STEPS / 2, (int) Math.ceil(Math.abs(sweep) / (Math.PI * 2 / ROUND_STEPS))));
+		float px = ax, py = ay;
+		for(int i = 1; i <= steps; i++) {
+			float a = a0 + sweep * i / steps;
+			float nx = x + (float) Math.cos(a) * hw;
+			float ny = y + (float) Math.sin(a) * hw;
+			putVertex(out, x, y, color);
+			putVertex(out, px, py, color);
+			putVertex(out, nx, ny, color);
+			px = nx;
+			py = ny;
+		}
+		return steps * 3;
+	}
+
+	/**
+	 * Writes the left normal of a line, scaled to <strong>hw</strong>, into <strong>dest</strong> at <strong>index</strong>
+	 * @return <code>false</code> if the line has no length
+	 */
+	private static boolean normalOf(float x1, float y1, float x2, float y2, float hw, float[] dest, int index) {
+		float dx = x2 - x1;
+		float dy = y2 - y1;
+		float len = (float) Math.sqrt(dx * dx + dy * dy);
+		if(len == 0)
+			return false;
+		dest[index] = -dy / len * hw;
+		dest[index + 1] = dx / len * hw;
+		return true;
+	}
+
+	private static void putVertex(FloatBuffer out, float x, float y, Vector4f c) {
+		out.put(x).put(y).put(c.x).put(c.y).put(c.z).put(c.w);
+	}
+
+}
@@ -0,0 +1,193 @@
+package gl;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL21.*;
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL32.*;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import staindev.Game;
+import util.Log;
+
+/**
+ * Reads pixels back from the GPU without stalling the frame. A read is queued into a pixel pack buffer and fenced;
+ * {@link #update()} polls the fences once a frame and, once the copy is done, flips the rows into a {@link BufferedImage}
+ * and hands it to a worker thread. Encoding and writing files happens there, off the render thread
+ */
+public class PixelReader {
+
+	/** receives a finished image. Runs on the worker thread */
+	public interface Callback {
+		void onPixels(BufferedImage image);
+	}
+
+	private static List<Request> pending = new ArrayList<>();
+	private static ExecutorService worker;
+	/** work the worker hands back to the render thread, e.g. playing a sound once a file is written */
+	private static ConcurrentLinkedQueue<Runnable> finished = new ConcurrentLinkedQueue<>();
+
+	public static void init() {
+		worker = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "pixel-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Queues a read of the whole of <strong>fbo</strong>. The fbo can be deleted right after this returns
+	 */
+	public static void read(FrameBufferRenderBuffer fbo, Callback callback) {
+		read(fbo.getId(), fbo.getWidth(), fbo.getHeight(), callback);
+	}
+
+	/**
+	 * Queues a read of the back buffer as it is now. Call after rendering and before swapping
+	 */
+	public static void readScreen(Callback callback) {
+		read(0, Game.WIDTH, Game.HEIGHT, callback);
+	}
+
+	private static void read(int framebuffer, int width, int height, Callback callback) {
+		Renderer.flush(); // what is still batched belongs in the picture
+		Request request = new Request();
+		request.width = width;
+		request.height = height;
+		request.callback = callback;
+		request.pbo = glGenBuffers();
+		GLState.bindBuffer(GL_PIXEL_PACK_BUFFER, request.pbo);
+		glBufferData(GL_PIXEL_PACK_BUFFER, (long) width * height * 4, GL_STREAM_READ);
+		GLState.bindFramebuffer(framebuffer);
+		glReadBuffer(framebuffer == 0 ? GL_BACK : GL_COLOR_ATTACHMENT0);
+		// BGRA as reversed 8 bit ints is exactly the 0xAARRGGBB layout of an int backed BufferedImage
+		glReadPixels(0, 0, width, height, GL_BGRA, GL_UNSIGNED_INT_8_8_8_8_REV, 0);
+		GLState.bindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+		request.fence = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+		pending.add(request);
+	}
+
+	/**
+	 * Collects every read the GPU has finished. Call once a frame
+	 */
+	public static void update() {
+		for(int i = 0; i < pending.size(); i++) {
+			Request request = pending.get(i);
+			int status = glClientWaitSync(request.fence, 0, 0); // just poll
+			if(status == GL_TIMEOUT_EXPIRED)
+				continue;
+			pending.remove(i--);
+			glDeleteSync(request.fence);
+			BufferedImage image = collect(request);
+			if(image != null)
+				worker.execute(() -> request.callback.onPixels(image));
+		}
+		Runnable task;
+		while((task = finished.poll()) != null)
+			task.run();
+	}
+
+	/**
+	 * Copies a finished read out of its buffer. GL's rows go bottom up and an image's top down, so whole rows are copied in reverse order
+	 */
+	private static BufferedImage collect(Request request) {
+		int width = request.width;
+		int height = request.height;
+		GLState.bindBuffer(GL_PIXEL_PACK_BUFFER, request.pbo);
+		ByteBuffer mapped = glMapBufferRange(GL_PIXEL_PACK_BUFFER, 0, (long) width * height * 4, GL_MAP_READ_BIT);
+		BufferedImage image = null;
+		if(mapped == null) {
+			Log.err("Could not map pixel buffer of " + width + "x" + height);
+		} else {
+			image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+			IntBuffer pixels = mapped.order(ByteOrder.nativeOrder()).asIntBuffer();
+			for(int y = 0; y < height; y++) {
+				pixels.position((height - 1 - y) * width);
+				pixels.get(data, y * width, width);
+			}
+			glUnmapBuffer(GL_PIXEL_PACK_BUFFER);
+		}
+		GLState.bindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+		GLState.deleteBuffer(request.pbo);
+		return image;
+	}
+
+	/**
+	 * @param path File to write a PNG to
+	 * @param whenDone Run on the render thread once the file is written. Can be <code>null</code>
+	 * @return callback which encodes the image as a PNG on the worker thread
+	 */
+	public static Callback writePNG(String path, Runnable whenDone) {
+		return image -> {
+			try {
+				File file = new File(path);
+				if(file.getParentFile() != null)
+					file.getParentFile().mkdirs();
+				ImageIO.write(image, "png", file);
+				if(whenDone != null)
+					finished.add(whenDone);
+			} catch (IOException e) {
+				Log.err("Cannot write to file: " + path);
+				e.printStackTrace();
+			}
+		};
+	}
+
+	/**
+	 * Queues <strong>task</strong> on the worker thread, behind every image already handed to it. Tasks run one at a time in the order they were queued
+	 */
+	public static void runOnWorker(Runnable task) {
+		worker.execute(task);
+	}
+
+	/**
+	 * Queues <strong>task</strong> to run on the render thread during the next {@link #update()}. Safe to call from any thread
+	 */
+	public static void runOnRenderThread(Runnable task) {
+		finished.add(task);
+	}
+
+	/**
+	 * Gives up on reads the GPU has not finished and waits for images already on the worker to be written
+	 */
+	public static void destroy() {
+		for(Request request : pending) {
+			glDeleteSync(request.fence);
+			GLState.deleteBuffer(request.pbo);
+		}
+		pending.clear();
+		worker.shutdown();
+		try {
+			if(!worker.awaitTermination(10, TimeUnit.SECONDS))
+				Log.warn("Gave up waiting for images to be written");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static class Request {
+		int pbo;
+		long fence;
+		int width;
+		int height;
+		Callback callback;
+	}
+
+}
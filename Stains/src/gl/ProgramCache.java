@@ -0,0 +1,149 @@
+package gl;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL41.*;
+import static org.lwjgl.system.MemoryUtil.*;
+import static org.lwjgl.util.xxhash.XXHash.XXH64;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL;
+
+import constants.Resources;
+import util.Log;
+
+/**
+ * Linked shader programs saved with <code>glGetProgramBinary</code> so later launches can skip compiling.
+ * An entry is keyed by a hash of the program's source together with the driver's vendor, renderer and version,
+ * since a binary is only valid for the driver that produced it. A driver is still free to reject a binary, e.g. after an
+ * update that kept the version string; the program is then compiled as usual and the entry written again
+ */
+public class ProgramCache {
+
+	private static final String PATH = Resources.CACHE_PATH + "shaders/";
+	private static final int MAGIC = 0x53505243; // SPRC
+	private static final int VERSION = 1;
+	/** magic, version, key, binary format, compile time in microseconds, binary length */
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4 + 4;
+
+	private static Boolean supported;
+
+	/**
+	 * @return <code>true</code> if the driver can save program binaries at all
+	 */
+	public static boolean isSupported() {
+		if(supported == null)
+			supported = GL.getCapabilities().glProgramBinary != 0 && glGetInteger(GL_NUM_PROGRAM_BINARY_FORMATS) > 0;
+		return supported;
+	}
+
+	/**
+	 * @return key of a program built from these sources by the current driver
+	 */
+	static long key(String vertex, String fragment) {
+		String driver = glGetString(GL_VENDOR) + "\n" + glGetString(GL_RENDERER) + "\n" + glGetString(GL_VERSION) + "\n";
+		ByteBuffer text = memUTF8(driver + vertex + "\0" + fragment, false);
+		try {
+			return XXH64(text, 0);
+		} finally {
+			memFree(text);
+		}
+	}
+
+	/**
+	 * Creates a program from its cached binary
+	 * @return the linked program, or 0 if there is no usable entry
+	 */
+	static int load(String name, long key) {
+		if(!isSupported())
+			return 0;
+		File file = entryFile(name);
+		if(!file.exists())
+			return 0;
+		long start = System.nanoTime();
+		ByteBuffer entry;
+		try {
+			byte[] bytes = Files.readAllBytes(file.toPath());
+			entry = BufferUtils.createByteBuffer(bytes.length).put(bytes);
+			entry.flip();
+		} catch (IOException e) {
+			return 0;
+		}
+		entry.order(ByteOrder.LITTLE_ENDIAN);
+		if(entry.remaining() < HEADER_SIZE || entry.getInt(0) != MAGIC || entry.getInt(4) != VERSION || entry.getLong(8) != key)
+			return 0; // older version, different source or different driver
+		int format = entry.getInt(16);
+		int compileMicros = entry.getInt(20);
+		int length = entry.getInt(24);
+		if(length != entry.remaining() - HEADER_SIZE)
+			return 0;
+
+		entry.position(HEADER_SIZE);
+		int program = glCreateProgram();
+		glProgramBinary(program, format, entry);
+		if(glGetProgrami(program, GL_LINK_STATUS) == GL_FALSE) {
+			Log.warn("Driver rejected the cached binary of " + name + ", compiling it again");
+			glDeleteProgram(program);
+			return 0;
+		}
+		long micros = (System.nanoTime() - start) / 1000;
+		Log.log("Loaded " + name + " from binary in " + micros / 1000.0f + " ms, saved " + Math.max(0, compileMicros - micros) / 1000.0f + " ms of compiling");
+		return program;
+	}
+
+	/**
+	 * Asks the driver to keep the binary of <strong>program</strong> around. Call before linking
+	 */
+	static void prepare(int program) {
+		if(isSupported())
+			glProgramParameteri(program, GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL_TRUE);
+	}
+
+	/**
+	 * Saves the binary of a freshly linked program
+	 * @param compileNanos How long compiling and linking took, to report what loading the entry saves
+	 */
+	static void save(String name, long key, int program, long compileNanos) {
+		if(!isSupported() || glGetProgrami(program, GL_LINK_STATUS) == GL_FALSE)
+			return;
+		int length = glGetProgrami(program, GL_PROGRAM_BINARY_LENGTH);
+		if(length <= 0)
+			return;
+		ByteBuffer entry = BufferUtils.createByteBuffer(HEADER_SIZE + length).order(ByteOrder.LITTLE_ENDIAN);
+		IntBuffer format = BufferUtils.createIntBuffer(1);
+		entry.position(HEADER_SIZE);
+		glGetProgramBinary(program, null, format, entry.slice());
+		entry.putInt(0, MAGIC);
+		entry.putInt(4, VERSION);
+		entry.putLong(8, key);
+		entry.putInt(16, format.get(0));
+		entry.putInt(20, (int) Math.min(Integer.MAX_VALUE, compileNanos / 1000));
+		entry.putInt(24, length);
+
+		byte[] bytes = new byte[HEADER_SIZE + length];
+		entry.position(0);
+		entry.get(bytes);
+		File file = entryFile(name);
+		File temp = new File(file.getPath() + ".tmp");
+		try {
+			file.getParentFile().mkdirs();
+			Files.write(temp.toPath(), bytes);
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			Log.warn("Cannot write program binary of " + name);
+		}
+	}
+
+	private static File entryFile(String name) {
+		return new File(PATH + name + ".bin");
+	}
+
+}
@@ -0,0 +1,121 @@
+package gl;
+
+import java.util.Arrays;
+
+import constants.Layer;
+import util.Camera;
+
+/**
+ * Records draws for a frame and submits them sorted so that layers stay in order while draws within a layer
+ * are grouped by shader and texture. Each draw is one <code>long</code> key:
+ * <pre>
+ * | layer 4 | depth 12 | shader 8 | texture 16 | sequence 24 |
+ * </pre>
+ * The sequence is the index of the command, so equal keys keep submission order and the sorted key leads back
+ * to its command. Recording only writes into arrays that grow when a frame needs more room than any frame before
+ */
+public class RenderQueue {
+	
+	public static final int MAX_DEPTH = (1 << 12) - 1;
+	private static final int MAX_COMMANDS = 1 << 24;
+	
+	private static final int LAYER_SHIFT = 60;
+	private static final int DEPTH_SHIFT = 48;
+	private static final int SHADER_SHIFT = 40;
+	private static final int TEXTURE_SHIFT = 24;
+	private static final long SEQUENCE_MASK = MAX_COMMANDS - 1;
+	
+	private static long[] keys = new long[1024];
+	private static long[] scratch = new long[keys.length];
+	private static Renderable[] commands = new Renderable[keys.length];
+	private static Camera[] cameras = new Camera[keys.length];
+	private static int[] counts = new int[256];
+	private static int size = 0;
+	
+	/**
+	 * Like {@link #submit(Renderable, Layer, int, Camera)} with a depth of 0
+	 */
+	public static void submit(Renderable renderable, Layer layer, Camera camera) {
+		submit(renderable, layer, 0, camera);
+	}
+	
+	/**
+	 * Records <strong>renderable</strong> to be drawn on the next {@link #flush()}
+	 * @param layer Layer to draw on. Always drawn above every lower layer
+	 * @param depth Order within the layer, 0 to {@value #MAX_DEPTH}. Higher is drawn later. Draws of equal depth are free
+	 *              to be reordered by shader and texture
+	 * @param camera Camera to draw with
+	 */
+	public static void submit(Renderable renderable, Layer layer, int depth, Camera camera) {
+		if(size == MAX_COMMANDS) {
+			flush(); // cannot index more commands, draw what we have
+		} else if(size == keys.length) {
+			int capacity = keys.length * 2;
+			keys = Arrays.copyOf(keys, capacity);
+			scratch = new long[capacity];
+			commands = Arrays.copyOf(commands, capacity);
+			cameras = Arrays.copyOf(cameras, capacity);
+		}
+		depth = Math.max(0, Math.min(depth, MAX_DEPTH));
+		keys[size] = (long) layer.ordinal() << LAYER_SHIFT
+				| (long) depth << DEPTH_SHIFT
+				| (long) (renderable.getSortShader() & 0xFF) << SHADER_SHIFT
+				| (long) (renderable.getSortTexture() & 0xFFFF) << TEXTURE_SHIFT
+				| size;
+		commands[size] = renderable;
+		cameras[size] = camera;
+		size++;
+	}
+	
+	/**
+	 * Sorts every recorded draw, renders them in order, and submits the batches
+	 */
+	public static void flush() {
+		sort();
+		for(int i = 0; i < size; i++) {
+			int command = (int) (keys[i] & SEQUENCE_MASK);
+			commands[command].render(cameras[command]);
+		}
+		Renderer.flush();
+		Arrays.fill(commands, 0, size, null); // don't keep dead objects around until the slot is reused
+		Arrays.fill(cameras, 0, size, null);
+		size = 0;
+	}
+	
+	/**
+	 * @return number of draws recorded since the last flush
+	 */
+	public static int size() {
+		return size;
+	}
+	
+	/**
+	 * LSD radix sort of the keys a byte at a time. A byte that is the same in every key is skipped,
+	 * which is most of the high bytes since only a few layers and depths are used
+	 */
+	private static void sort() {
+		long[] from = keys;
+		long[] to = scratch;
+		for(int shift = 0; shift < 64; shift += 8) {
+			Arrays.fill(counts, 0);
+			for(int i = 0; i < size; i++)
+				counts[(int) (from[i] >>> shift) & 0xFF]++;
+			if(counts[(int) (from[0] >>> shift) & 0xFF] == size)
+				continue; // every key has the same digit, this pass would not move anything
+			int total = 0;
+			for(int d = 0; d < counts.length; d++) {
+				int count = counts[d];
+				counts[d] = total;
+				total += count;
+			}
+			for(int i = 0; i < size; i++)
+				to[counts[(int) (from[i] >>> shift) & 0xFF]++] = from[i];
+			long[] swap = from;
+			from = to;
+			to = swap;
+		}
+		keys = from;
+		scratch = to;
+	}
+	
+}
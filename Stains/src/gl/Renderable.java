@@ -0,0 +1,26 @@
+package gl;
+
+import util.Camera;
+
+/**
+ * Anything that can be recorded into a {@link RenderQueue} and drawn once the queue is sorted.
+ * The sort ids only need to be equal for draws that can share a batch; they do not have to be GL names
+ */
+public interface Renderable {
+	
+	/**
+	 * Draws this. Called by {@link RenderQueue#flush()} in sorted order
+	 */
+	void render(Camera camera);
+	
+	/**
+	 * @return id of the program this is drawn with
+	 */
+	int getSortShader();
+	
+	/**
+	 * @return id of the texture, or whatever other state breaks a batch, this is drawn with
+	 */
+	int getSortTexture();
+	
+}
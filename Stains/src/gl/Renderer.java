@@ -2,8 +2,82 @@ package gl;
 
 import static org.lwjgl.opengl.GL11.*;
 
+import org.joml.Matrix4f;
+
+import staindev.Game;
+import util.Camera;
+
 public class Renderer {
 	
+	public static SpriteBatch SPRITES;
+	public static LineBatch LINES;
+	public static InstanceBatch INSTANCES;
+	
+	/** the batch that currently holds unsubmitted draws */
+	private static Batch active;
+	
+	/** view and projection shared by every shader through the Camera uniform block */
+	private static UniformBuffer cameraBuffer;
+	private static Matrix4f view = new Matrix4f();
+	private static boolean cameraWritten;
+	private static float cameraX;
+	private static float cameraY;
+	private static Matrix4f cameraProj;
+	
+	public static void init() {
+		cameraBuffer = new UniformBuffer(32, UniformBuffer.CAMERA_BINDING); // 2 x mat4
+		cameraWritten = false;
+		SPRITES = new SpriteBatch();
+		LINES = new LineBatch();
+		INSTANCES = new InstanceBatch();
+		active = null;
+	}
+	
+	public static void destroy() {
+		cameraBuffer.delete();
+		SPRITES.delete();
+		LINES.delete();
+		INSTANCES.delete();
+	}
+	
+	/**
+	 * Makes <strong>batch</strong> the active batch, flushing whatever batch was active before it so draw order is kept
+	 */
+	public static void begin(Batch batch) {
+		if(active != batch) {
+			flush();
+			active = batch;
+		}
+	}
+	
+	/**
+	 * Submits the active batch. Must be called before anything draws outside of a batch, before changing render targets, and at the end of the frame
+	 */
+	public static void flush() {
+		if(active != null) {
+			Batch batch = active;
+			active = null;
+			batch.flush();
+		}
+	}
+	
+	/**
+	 * Makes <strong>camera</strong> and the current {@link Game#proj} the view and projection of everything drawn next.
+	 * The uniform block is only rewritten when either changed, which flushes the active batch first
+	 */
+	public static void setCamera(Camera camera) {
+		if(cameraWritten && camera.x == cameraX && camera.y == cameraY && Game.proj == cameraProj)
+			return;
+		flush(); // whatever was batched was positioned for the old camera
+		cameraX = camera.x;
+		cameraY = camera.y;
+		cameraProj = Game.proj;
+		cameraBuffer.set(0, view.translation(-cameraX, -cameraY, 0));
+		cameraBuffer.set(16, cameraProj);
+		cameraBuffer.upload();
+		cameraWritten = true;
+	}
+	
 	public static void setClearColor(int r, int g, int b) {
 		glClearColor(r / 255.0f, g / 255.0f, b / 255.0f, 0); // probably doesn't matter
 	}
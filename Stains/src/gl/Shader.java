@@ -2,9 +2,9 @@ package gl;
 
 import static org.lwjgl.opengl.GL11.GL_FALSE;
 import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL31.*;
 
 import java.io.IOException;
-import java.nio.FloatBuffer;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.HashMap;
@@ -13,7 +13,6 @@ import java.util.Map;
 
 import org.joml.Matrix4f;
 import org.joml.Vector4f;
-import org.lwjgl.BufferUtils;
 
 import constants.Resources;
 import util.Log;
@@ -21,10 +20,11 @@ import util.Log;
 public class Shader {
 	
 	private int id;
-	private Map<String, Integer> uniforms = new HashMap<String, Integer>();
+	private Map<String, Uniform> uniforms = new HashMap<String, Uniform>();
 	
 	/**
-	 * A Shader program which compiles a given program into OpenGL and accepts uniforms
+	 * A Shader program which compiles a given program into OpenGL and accepts uniforms.
+	 * If the program declares the {@value UniformBuffer#CAMERA_BLOCK} block it is attached to {@link UniformBuffer#CAMERA_BINDING}
 	 * @param shaderName Path to shader from relative path res/shaders
 	 * @param uniforms List of uniforms to initialize immediately
 	 */
@@ -54,23 +54,37 @@ public class Shader {
 			}
 		}
 		
-		id = createShader(shaders[0].toString(), shaders[1].toString());
+		// reuse the linked program from the last launch if neither the source nor the driver changed
+		String vertex = shaders[0].toString();
+		String fragment = shaders[1].toString();
+		long key = ProgramCache.key(vertex, fragment);
+		id = ProgramCache.load(shaderName, key);
+		if(id == 0) {
+			long start = System.nanoTime();
+			id = createShader(vertex, fragment);
+			ProgramCache.save(shaderName, key, id, System.nanoTime() - start);
+		}
 		bind();
+		bindBlock(UniformBuffer.CAMERA_BLOCK, UniformBuffer.CAMERA_BINDING);
 		
 		for(String uniform : uniforms)
 			linkUniform(uniform);
 	}
 	
 	public void bind() {
-		glUseProgram(id);
+		GLState.useProgram(id);
 	}
 	
 	public void unbind() {
-		glUseProgram(0);
+		GLState.useProgram(0);
 	}
 	
 	public void delete() {
-		glDeleteProgram(id);
+		GLState.deleteProgram(id);
+	}
+	
+	public int getId() {
+		return id;
 	}
 	
 	public void linkUniform(String name) {
@@ -78,37 +92,52 @@ public class Shader {
 		if(location == -1)
 			Log.warn("uniform " + name + " does not exist");
 		else
-			uniforms.put(name, location);
+			uniforms.put(name, new Uniform(location));
+	}
+	
+	/**
+	 * @return the handle of a uniform passed to the constructor or {@link #linkUniform(String)}, or <code>null</code> if it doesn't exist.
+	 * Look it up once and keep it, rather than setting uniforms by name every draw
+	 */
+	public Uniform getUniform(String name) {
+		return uniforms.get(name);
+	}
+	
+	/**
+	 * Attaches a uniform block to a binding point, if this program has it
+	 */
+	public void bindBlock(String name, int binding) {
+		int index = glGetUniformBlockIndex(id, name);
+		if(index != GL_INVALID_INDEX)
+			glUniformBlockBinding(id, index, binding);
 	}
 	
 	public void set(String uniform, float a, float b, float c, float d) {
-		glUniform4f(uniforms.get(uniform), a, b, c, d);
+		uniforms.get(uniform).set(a, b, c, d);
 	}
 	
 	public void set(String uniform, float a, float b, float c) {
-		glUniform3f(uniforms.get(uniform), a, b, c);
+		uniforms.get(uniform).set(a, b, c);
 	}
 	
 	public void set(String uniform, float a, float b) {
-		glUniform2f(uniforms.get(uniform), a, b);
+		uniforms.get(uniform).set(a, b);
 	}
 	
 	public void set(String uniform, float a) {
-		glUniform1f(uniforms.get(uniform), a);
+		uniforms.get(uniform).set(a);
 	}
 	
 	public void set(String uniform, int a) {
-		glUniform1i(uniforms.get(uniform), a);
+		uniforms.get(uniform).set(a);
 	}
 	
-	private FloatBuffer buf4 = BufferUtils.createFloatBuffer(4);
 	public void set(String uniform, Vector4f a) {
-		glUniform4fv(uniforms.get(uniform), a.get(buf4));
+		uniforms.get(uniform).set(a);
 	}
 	
-	private FloatBuffer buf16 = BufferUtils.createFloatBuffer(16); // so we don't have to create a 16-float buffer every time we call this
 	public void set(String uniform, Matrix4f a) {
-		glUniformMatrix4fv(uniforms.get(uniform), false, a.get(buf16));
+		uniforms.get(uniform).set(a);
 	}
 	
 	private int compileShader(String source, int type) {
@@ -135,6 +164,7 @@ public class Shader {
 
 		glAttachShader(program, vs);
 		glAttachShader(program, fs);
+		ProgramCache.prepare(program);
 		glLinkProgram(program);
 		glValidateProgram(program);
 
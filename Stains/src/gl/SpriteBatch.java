@@ -0,0 +1,149 @@
+package gl;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL32.glDrawElementsBaseVertex;
+
+import java.nio.FloatBuffer;
+
+import constants.Shaders;
+import objects.Surface;
+
+/**
+ * Collects textured quads straight into a {@link StreamingVertexBuffer} so that many sprites can be drawn with a single call.
+ * A plain texture (atlas page) is bound to slot 0 and an array texture (animation) to slot 1, so the two can share a draw.
+ * The batch is flushed whenever either texture changes, another {@link Batch} begins, or at the end of the frame
+ */
+public class SpriteBatch implements Batch {
+	
+	private static final int MAX_SPRITES = 2048;
+	private static final int FLOATS_PER_VERTEX = 6; // x, y, u, v, layer, brightScale
+	private static final int TEXTURE_SLOT = 0;
+	private static final int ARRAY_SLOT = 1;
+	private static final int FLOATS_PER_SPRITE = FLOATS_PER_VERTEX * 4;
+	
+	private VertexArray vao;
+	private StreamingVertexBuffer vbo;
+	private IndexBuffer ibo;
+	private FloatBuffer vertices; // region of vbo being written, null when nothing is batched
+	private Shader program;
+	private Uniform textureSlot;
+	private Uniform arraySlot;
+	private Surface texture;
+	private Surface array;
+	private int count;
+	
+	public SpriteBatch() {
+		VertexBufferFormat format = new VertexBufferFormat();
+		format.pushFloat(2); // x, y
+		format.pushFloat(2); // u, v
+		format.pushFloat(1); // layer
+		format.pushFloat(1); // brightScale
+		vao = new VertexArray();
+		vbo = new StreamingVertexBuffer(MAX_SPRITES * FLOATS_PER_SPRITE, 4, format);
+		vao.addBuffer(vbo);
+		
+		int[] indices = new int[MAX_SPRITES * 6];
+		for(int i = 0, v = 0; i < indices.length; i += 6, v += 4) {
+			indices[i] = v;
+			indices[i + 1] = v + 1;
+			indices[i + 2] = v + 2;
+			indices[i + 3] = v + 2;
+			indices[i + 4] = v + 3;
+			indices[i + 5] = v;
+		}
+		ibo = new IndexBuffer(indices);
+		vao.unbind();
+		
+		vertices = null;
+		program = Shaders.TEXTURE;
+		textureSlot = program.getUniform("u_Texture");
+		arraySlot = program.getUniform("u_TextureArray");
+		texture = null;
+		array = null;
+		count = 0;
+	}
+	
+	/**
+	 * Adds a sprite to the batch with the same transformation {@link objects.GameObject GameObject} has always used.
+	 * Positions are in world space; call {@link Renderer#setCamera(util.Camera)} first
+	 * @param surface Surface to draw. Its current frame is used if it is animated
+	 * @param x Center X
+	 * @param y Center Y
+	 * @param rot Rotation, in radians
+	 * @param trueScale Scale relative to the size of the texture
+	 * @param brightScale 0 is normal. 1 is fully white. -1 is fully black
+	 */
+	public void draw(Surface surface, float x, float y, float rot, float trueScale, float brightScale) {
+		Renderer.begin(this);
+		if(count == MAX_SPRITES)
+			flush();
+		if(surface.getLayer() < 0) {
+			if(texture != null && texture.getId() != surface.getId()) // sprites on the same atlas page don't need a switch
+				flush();
+			texture = surface;
+		} else {
+			if(array != null && array.getId() != surface.getId()) // any frame of the same animation doesn't need a switch
+				flush();
+			array = surface;
+		}
+		if(vertices == null)
+			vertices = vbo.map(MAX_SPRITES * FLOATS_PER_SPRITE);
+		
+		float w = surface.getWidth();
+		float h = surface.getHeight();
+		float ox = surface.getOffsetX();
+		float oy = surface.getOffsetY();
+		float angle = rot - surface.getOffsetRot();
+		float cos = (float) Math.cos(angle) * trueScale;
+		float sin = (float) Math.sin(angle) * trueScale;
+		
+		// corners of the unit quad, scaled to the texture and shifted by its anchor. Same winding and uvs as Rect
+		float left = -0.5f * w - ox;
+		float right = 0.5f * w - ox;
+		float bottom = -0.5f * h + oy;
+		float top = 0.5f * h + oy;
+		float u0 = surface.getU0();
+		float v0 = surface.getV0();
+		float u1 = surface.getU1();
+		float v1 = surface.getV1();
+		float layer = surface.getLayer();
+		putVertex(x, y, cos, sin, left, bottom, u0, v1, layer, brightScale);
+		putVertex(x, y, cos, sin, right, bottom, u1, v1, layer, brightScale);
+		putVertex(x, y, cos, sin, right, top, u1, v0, layer, brightScale);
+		putVertex(x, y, cos, sin, left, top, u0, v0, layer, brightScale);
+		count++;
+	}
+	
+	private void putVertex(float x, float y, float cos, float sin, float lx, float ly, float u, float v, float layer, float brightScale) {
+		vertices.put(x + lx * cos - ly * sin).put(y + lx * sin + ly * cos).put(u).put(v).put(layer).put(brightScale);
+	}
+	
+	@Override
+	public void flush() {
+		if(count == 0)
+			return;
+		int first = vbo.unmap();
+		vertices = null;
+		program.bind();
+		if(texture != null)
+			texture.bind(TEXTURE_SLOT);
+		if(array != null)
+			array.bind(ARRAY_SLOT);
+		textureSlot.set(TEXTURE_SLOT);
+		arraySlot.set(ARRAY_SLOT);
+		vao.bind();
+		ibo.bind();
+		glDrawElementsBaseVertex(GL_TRIANGLES, count * 6, GL_UNSIGNED_INT, 0, first);
+		vbo.fence(); // only now that the draw reading the region is issued
+		count = 0;
+		texture = null;
+		array = null;
+	}
+	
+	public void delete() {
+		vao.delete();
+		vbo.delete();
+		ibo.delete();
+	}
+	
+}
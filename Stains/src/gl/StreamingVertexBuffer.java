@@ -0,0 +1,227 @@
+package gl;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL32.*;
+import static org.lwjgl.opengl.GL44.*;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL;
+
+import constants.Sizeof;
+import util.Log;
+
+/**
+ * Vertex buffer for geometry that is rewritten every frame. One large ring is allocated up front and handed out as write
+ * regions: {@link #map(int)} returns off-heap memory to write vertices into, {@link #unmap()} commits what was written
+ * and returns the vertex to draw from, and {@link #fence()} is called once the draw reading it is issued.
+ * <p>
+ * Where <code>glBufferStorage</code> is available the ring is mapped once, persistently, and written in place. It is split
+ * into sections guarded by fences, so a section is only written again once the GPU has finished reading it. A section
+ * is fenced after the last draw that reads from it, never before, since a region may run on into the next section.
+ * Otherwise regions are staged and uploaded with <code>glBufferSubData</code>, and the buffer is orphaned every time the
+ * ring wraps, so the driver never makes us wait for a draw still using the old storage.
+ */
+public class StreamingVertexBuffer {
+
+	private static final int SECTIONS = 3;
+	/** how long to wait on a fence per try, in nanoseconds */
+	private static final long FENCE_TIMEOUT = 1000000;
+
+	private int id;
+	private VertexBufferFormat format;
+	private int stride; // floats per vertex
+	private int capacity; // floats
+	private int maxRegion; // floats
+	private int head; // floats
+
+	private boolean persistent;
+	private FloatBuffer mapped; // whole ring when persistent
+	private FloatBuffer staging; // one region otherwise
+	private FloatBuffer region;
+	private int regionStart; // floats, -1 when not mapped
+
+	private int sectionSize; // floats
+	private int section;
+	/** latest fence of each section. A region spanning two sections puts the same fence in both */
+	private long[] fences;
+	// sections read by the last committed region, waiting for fence(). -1 when there is none
+	private int pendingFirst = -1;
+	private int pendingLast;
+
+	/**
+	 * @param maxRegion Most floats a single {@link #map(int)} will ask for
+	 * @param regions How many maximum regions fit in the ring. More means fewer waits and wraps
+	 */
+	public StreamingVertexBuffer(int maxRegion, int regions, VertexBufferFormat format) {
+		format.finalize();
+		this.format = format;
+		this.stride = format.getStride() / Sizeof.FLOAT;
+		this.maxRegion = maxRegion;
+		this.capacity = Math.max(regions, SECTIONS) * maxRegion;
+		this.head = 0;
+		this.regionStart = -1;
+		this.persistent = GL.getCapabilities().glBufferStorage != 0;
+
+		id = glGenBuffers();
+		bind();
+		long bytes = (long) capacity * Sizeof.FLOAT;
+		if(persistent) {
+			int flags = GL_MAP_WRITE_BIT | GL_MAP_PERSISTENT_BIT | GL_MAP_COHERENT_BIT;
+			glBufferStorage(GL_ARRAY_BUFFER, bytes, flags);
+			ByteBuffer map = glMapBufferRange(GL_ARRAY_BUFFER, 0, bytes, flags);
+			if(map == null) {
+				Log.warn("persistent mapping failed, streaming with orphaning instead");
+				GLState.deleteBuffer(id);
+				id = glGenBuffers();
+				bind();
+				persistent = false;
+			} else {
+				mapped = map.asFloatBuffer();
+				sectionSize = (capacity + SECTIONS - 1) / SECTIONS;
+				section = 0;
+				fences = new long[SECTIONS];
+			}
+		}
+		if(!persistent) {
+			glBufferData(GL_ARRAY_BUFFER, bytes, GL_STREAM_DRAW);
+			staging = BufferUtils.createFloatBuffer(maxRegion);
+		}
+	}
+
+	/**
+	 * Hands out room for up to <strong>floats</strong> floats of vertices. Only what is actually written is committed by {@link #unmap()}
+	 * @return buffer positioned at 0 to write vertices into. Do not keep it after unmapping
+	 */
+	public FloatBuffer map(int floats) {
+		if(regionStart != -1)
+			throw new IllegalStateException("region is already mapped");
+		fence(); // in case the last region's draw didn't, it has been issued by now
+		if(floats > maxRegion)
+			throw new IllegalArgumentException("region of " + floats + " floats is larger than the maximum of " + maxRegion);
+
+		int start = (head + stride - 1) / stride * stride; // regions start on a whole vertex
+		if(start + floats > capacity) { // wrap around
+			start = 0;
+			bind();
+			if(!persistent)
+				glBufferData(GL_ARRAY_BUFFER, (long) capacity * Sizeof.FLOAT, GL_STREAM_DRAW); // orphan
+		}
+		regionStart = start;
+
+		if(persistent) {
+			if(start == 0)
+				advanceTo(0);
+			advanceTo(start / sectionSize);
+			advanceTo((start + floats - 1) / sectionSize);
+			mapped.limit(start + floats).position(start);
+			region = mapped.slice();
+			mapped.clear();
+		} else {
+			staging.clear().limit(floats);
+			region = staging;
+		}
+		return region;
+	}
+
+	/**
+	 * Commits everything written to the region returned by {@link #map(int)}
+	 * @return index of the first written vertex in this buffer, to pass as <code>first</code> or <code>basevertex</code> when drawing
+	 */
+	public int unmap() {
+		if(regionStart == -1)
+			throw new IllegalStateException("no region is mapped");
+		int written = region.position();
+		if(!persistent && written > 0) {
+			staging.flip();
+			bind();
+			glBufferSubData(GL_ARRAY_BUFFER, (long) regionStart * Sizeof.FLOAT, staging);
+		}
+		if(persistent && written > 0) {
+			pendingFirst = regionStart / sectionSize;
+			pendingLast = (regionStart + written - 1) / sectionSize;
+		}
+		int first = regionStart / stride;
+		head = regionStart + written;
+		regionStart = -1;
+		region = null;
+		return first;
+	}
+
+	/**
+	 * Fences the sections read by the last committed region. Call right after issuing the draw that reads it
+	 */
+	public void fence() {
+		if(pendingFirst == -1)
+			return;
+		long fence = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+		for(int s = pendingFirst; s <= pendingLast; s++) {
+			long old = fences[s];
+			fences[s] = fence; // fences signal in order, so the new one covers every draw the old one did
+			release(old);
+		}
+		pendingFirst = -1;
+	}
+	
+	/**
+	 * Moves the writer into <strong>target</strong>, waiting for the GPU to be done with every section it enters
+	 */
+	private void advanceTo(int target) {
+		while(section != target) {
+			section = (section + 1) % SECTIONS;
+			long fence = fences[section];
+			if(fence != 0) {
+				int result = glClientWaitSync(fence, GL_SYNC_FLUSH_COMMANDS_BIT, FENCE_TIMEOUT);
+				while(result == GL_TIMEOUT_EXPIRED)
+					result = glClientWaitSync(fence, 0, FENCE_TIMEOUT);
+				fences[section] = 0;
+				release(fence);
+			}
+		}
+	}
+	
+	/**
+	 * Deletes <strong>fence</strong> unless another section still holds it
+	 */
+	private void release(long fence) {
+		if(fence == 0)
+			return;
+		for(long held : fences)
+			if(held == fence)
+				return;
+		glDeleteSync(fence);
+	}
+	
+	public void bind() {
+		GLState.bindBuffer(GL_ARRAY_BUFFER, id);
+	}
+
+	public void delete() {
+		if(persistent) {
+			bind();
+			glUnmapBuffer(GL_ARRAY_BUFFER);
+			pendingFirst = -1;
+			for(int s = 0; s < SECTIONS; s++) {
+				long fence = fences[s];
+				fences[s] = 0;
+				release(fence);
+			}
+		}
+		GLState.deleteBuffer(id);
+	}
+
+	/**
+	 * @return <code>true</code> if the ring is persistently mapped, <code>false</code> if it falls back to orphaning
+	 */
+	public boolean isPersistent() {
+		return persistent;
+	}
+
+	public VertexBufferFormat getFormat() {
+		return format;
+	}
+
+}
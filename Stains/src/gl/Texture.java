@@ -2,20 +2,9 @@ package gl;
 
 import static org.lwjgl.opengl.GL11.*;
 import static org.lwjgl.opengl.GL12.GL_CLAMP_TO_EDGE;
-import static org.lwjgl.opengl.GL13.*;
-
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
-import java.nio.ByteBuffer;
-
-import javax.imageio.ImageIO;
-
-import org.lwjgl.BufferUtils;
 
 import constants.Resources;
 import objects.Surface;
-import util.Log;
 
 public class Texture extends Surface {
 	
@@ -25,8 +14,22 @@ public class Texture extends Surface {
 	private float offsetX;
 	private float offsetY;
 	private float offsetRot;
+	/** pixel the texture rotates about, kept until the size is known. Used when there is no <code>anchor</code>, NaN for the middle */
+	private float centerX, centerY;
+	private Anchor anchor;
 	private boolean isLoaded;
+	/** <code>true</code> if this texture is a region of a {@link TextureAtlas} page rather than its own GL texture */
+	private boolean isAtlased;
+	/** <code>true</code> if the {@link TextureManager} loads and evicts this texture on demand */
+	private boolean isManaged;
+	private int refs;
+	/** frame this texture was last bound in, for the {@link TextureManager} */
+	private int lastUsed;
+	/** <code>true</code> from when a managed texture is requested until it is uploaded. Stays set if it failed to load */
+	private boolean isLoading;
+	private float u0, v0, u1, v1;
 	private String filename;
+	private String path;
 	
 	private static String localPath = "";
 	
@@ -43,35 +46,37 @@ public class Texture extends Surface {
 	public Texture(String name, float centerX, float centerY, float quarterTurns) {
 		super();
 		basicInit(name);
-		loadImageToGL();
-		this.offsetX = centerX - (width / 2.0f);
-		this.offsetY = centerY - (height / 2.0f);
+		this.centerX = centerX;
+		this.centerY = centerY;
 		this.offsetRot = (float) (quarterTurns * Math.PI / 2);
+		loadImageToGL();
 	}
 	
 	public Texture(String name, Anchor anchor) {
 		super();
 		basicInit(name);
-		loadImageToGL();
-		this.offsetX = anchor.getX(width) - (width / 2.0f);
-		this.offsetY = anchor.getY(height) - (height / 2.0f);
+		this.anchor = anchor;
 		this.offsetRot = 0;
+		loadImageToGL();
 	}
 
 	/**
 	 * Creates, but does not load the texture if load is set to <code>false</code>. 
-	 * This is recommended when the texture is very large and needs to be loaded and deleted as needed
+	 * This is recommended when the texture is very large and needs to be loaded and deleted as needed.
+	 * Such a texture is handed to the {@link TextureManager}: it loads in the background the first time it is bound
+	 * or {@link #acquire() acquired}, and may be evicted again once it goes unused
 	 * @param name
 	 * @param load
 	 */
 	public Texture(String name, boolean load) {
-		super();
+		super(load); // managed textures are kept alive by whoever uses them, not by Textures
 		basicInit(name);
+		this.isManaged = !load;
+		this.centerX = Float.NaN; // default offset none = middle
+		this.centerY = Float.NaN;
+		this.offsetRot = 0;
 		if(load)
 			loadImageToGL();
-		this.offsetX = 0; // default offset none = middle
-		this.offsetY = 0;
-		this.offsetRot = 0;
 	}
 	
 	/**
@@ -84,38 +89,50 @@ public class Texture extends Surface {
 	
 	private void basicInit(String name) {
 		this.filename = name;
+		this.path = Resources.TEXTURES_PATH + Texture.localPath + name;
 		this.isLoaded = false;
+		this.isAtlased = false;
+		this.isManaged = false;
+		this.isLoading = false;
+		this.refs = 0;
 		this.width = 0;
 		this.height = 0;
+		setRegion(0, 0.0f, 0.0f, 1.0f, 1.0f);
 	}
 	
 	public static void setLocalPath(String path) {
 		Texture.localPath = path;
 	}
 	
+	/**
+	 * Decodes the image and uploads it. Inside an {@link ImageLoader} batch the image is decoded in the background and the
+	 * texture has no size until {@link ImageLoader#end()}. If a {@link TextureAtlas} is being built the image is handed to
+	 * it instead and the texture can't be bound until {@link TextureAtlas#end()}
+	 */
 	public void loadImageToGL() {
-		String fullLocalPath = Resources.TEXTURES_PATH + Texture.localPath;
-		BufferedImage image = null;
-		try {
-			image = ImageIO.read(new File(fullLocalPath + filename));
-		} catch (IOException e) {
-			Log.err("Cannot open file: " + fullLocalPath + filename);
-		}
+		ImageLoader.load(path, this::upload);
+	}
+	
+	/**
+	 * Takes a decoded image as this texture's contents. Always on the render thread
+	 */
+	void upload(ImageData image) {
+		if(image == null)
+			return;
 		
 		width = image.getWidth();
 		height = image.getHeight();
-		int size = width * height * 4; // width * height * channels
-		int[] store = new int[size];
-		image.getData().getPixels(0, 0, image.getWidth(), image.getHeight(), store);
-		
-		// cast array to bytes for the ByteBuffer
-		byte[] storeBytes = new byte[size];
-		for(int i = 0; i < size; i++)
-			storeBytes[i] = (byte) store[i];
-		
-		ByteBuffer data = BufferUtils.createByteBuffer(size);
-		data.put(storeBytes);
-		data.flip(); // openGL wants data starting from bottom left corner
+		if(anchor != null) {
+			offsetX = anchor.getX(width) - (width / 2.0f);
+			offsetY = anchor.getY(height) - (height / 2.0f);
+		} else if(!Float.isNaN(centerX)) {
+			offsetX = centerX - (width / 2.0f);
+			offsetY = centerY - (height / 2.0f);
+		}
+		if(!isManaged && TextureAtlas.accepts(image)) { // managed textures have to be able to leave memory again
+			TextureAtlas.add(this, image);
+			return;
+		}
 		
 		isLoaded = true;
 		id = glGenTextures();
@@ -125,15 +142,55 @@ public class Texture extends Surface {
 		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
 		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
 		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
-		glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA8, width, height, 0, GL_RGBA, GL_UNSIGNED_BYTE, data);
+		glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA8, width, height, 0, GL_RGBA, GL_UNSIGNED_BYTE, image.getPixels());
 		unbind();
+		image.free();
+		if(isManaged)
+			TextureManager.loaded(this);
+	}
+	
+	/**
+	 * Marks this texture as in use, so it is loaded now if it isn't and only evicted once nothing else is left to evict.
+	 * Every call should be paired with {@link #release()}. Only meaningful for textures created with <code>load</code> set to <code>false</code>
+	 */
+	public void acquire() {
+		refs++;
+		if(isManaged && !isLoaded)
+			TextureManager.request(this);
+	}
+	
+	/**
+	 * Gives up a reference from {@link #acquire()}. The texture stays loaded until the memory budget needs the room
+	 */
+	public void release() {
+		if(refs > 0)
+			refs--;
+	}
+	
+	/**
+	 * Points this texture at a region of an atlas page. Called by {@link TextureAtlas} once the page is uploaded
+	 * @param pageId GL texture of the page
+	 */
+	void setRegion(int pageId, float u0, float v0, float u1, float v1) {
+		if(pageId != 0) {
+			this.id = pageId;
+			this.isAtlased = true;
+			this.isLoaded = true;
+		}
+		this.u0 = u0;
+		this.v0 = v0;
+		this.u1 = u1;
+		this.v1 = v1;
 	}
 	
 	public void bind(int slot) {
 		if(isLoaded) {
-			glActiveTexture(GL_TEXTURE0 + slot);
-			glBindTexture(GL_TEXTURE_2D, id);
-		} else
+			GLState.bindTexture(slot, GL_TEXTURE_2D, id);
+			if(isManaged)
+				TextureManager.touch(this);
+		} else if(isManaged)
+			TextureManager.bindPlaceholder(slot, this); // and starts loading
+		else
 			throw new IllegalStateException("Tried to bind " + filename + " but can't because texture not loaded"); // XXX: for debugging, instead bind a dev null texture
 	}
 	
@@ -142,13 +199,72 @@ public class Texture extends Surface {
 	}
 	
 	public void unbind() {
-		glBindTexture(GL_TEXTURE_2D, 0);
+		GLState.bindTexture(GL_TEXTURE_2D, 0);
 	}
 	
 	public void delete() {
-		glDeleteTextures(id);
+		if(isManaged) {
+			TextureManager.unload(this);
+			return;
+		}
+		if(!isAtlased) // atlas pages are shared and deleted by TextureAtlas.destroy()
+			GLState.deleteTexture(id);
 		isLoaded = false;
 	}
+	
+	/**
+	 * Frees the GL texture of a managed texture. It is loaded again the next time it is bound
+	 */
+	void unload() {
+		GLState.deleteTexture(id);
+		id = 0;
+		isLoaded = false;
+		isLoading = false;
+	}
+	
+	/** @return bytes of video memory this texture takes while loaded */
+	long getSizeInBytes() {
+		return (long) width * height * 4;
+	}
+	
+	boolean isLoaded() {
+		return isLoaded;
+	}
+	
+	boolean isLoading() {
+		return isLoading;
+	}
+	
+	void setLoading(boolean isLoading) {
+		this.isLoading = isLoading;
+	}
+	
+	int getLastUsed() {
+		return lastUsed;
+	}
+	
+	void setLastUsed(int lastUsed) {
+		this.lastUsed = lastUsed;
+	}
+	
+	int getRefs() {
+		return refs;
+	}
+	
+	String getPath() {
+		return path;
+	}
+	
+	/** @return the GL texture this texture lives in. Shared by every texture on the same atlas page */
+	@Override
+	public int getId() {
+		return id;
+	}
+	
+	@Override
+	public int getLayer() {
+		return -1;
+	}
 
 	public int getWidth() {
 		return width;
@@ -170,6 +286,26 @@ public class Texture extends Surface {
 		return offsetRot;
 	}
 	
+	@Override
+	public float getU0() {
+		return u0;
+	}
+	
+	@Override
+	public float getV0() {
+		return v0;
+	}
+	
+	@Override
+	public float getU1() {
+		return u1;
+	}
+	
+	@Override
+	public float getV1() {
+		return v1;
+	}
+	
 	public String getFilename() {
 		return filename;
 	}
@@ -0,0 +1,84 @@
+package gl;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.*;
+import static org.lwjgl.opengl.GL30.GL_TEXTURE_2D_ARRAY;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.lwjgl.BufferUtils;
+
+/**
+ * A <code>GL_TEXTURE_2D_ARRAY</code> holding equally sized layers, e.g. every frame of an animation.
+ * Layers smaller than the largest one are placed in the top left corner of their layer, with the rest left transparent
+ */
+public class TextureArray {
+	
+	private int id;
+	private int width;
+	private int height;
+	private int layers;
+	
+	/**
+	 * Uploads every image as one layer, in order. The images are freed afterwards
+	 */
+	public TextureArray(List<ImageData> images) {
+		this.layers = images.size();
+		this.width = 0;
+		this.height = 0;
+		for(ImageData image : images) {
+			width = Math.max(width, image.getWidth());
+			height = Math.max(height, image.getHeight());
+		}
+		
+		id = glGenTextures();
+		GLState.bindTexture(GL_TEXTURE_2D_ARRAY, id);
+		glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+		glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+		glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+		glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+		glTexImage3D(GL_TEXTURE_2D_ARRAY, 0, GL_RGBA8, width, height, layers, 0, GL_RGBA, GL_UNSIGNED_BYTE, (ByteBuffer) null);
+		ByteBuffer clear = null; // one transparent layer, so linear filtering at the edge of a smaller frame reads nothing undefined
+		for(int i = 0; i < layers; i++) {
+			ImageData image = images.get(i);
+			if(image.getWidth() < width || image.getHeight() < height) {
+				if(clear == null)
+					clear = BufferUtils.createByteBuffer(width * height * 4);
+				glTexSubImage3D(GL_TEXTURE_2D_ARRAY, 0, 0, 0, i, width, height, 1, GL_RGBA, GL_UNSIGNED_BYTE, clear);
+			}
+			glTexSubImage3D(GL_TEXTURE_2D_ARRAY, 0, 0, 0, i, image.getWidth(), image.getHeight(), 1, GL_RGBA, GL_UNSIGNED_BYTE, image.getPixels());
+			image.free();
+		}
+		GLState.bindTexture(GL_TEXTURE_2D_ARRAY, 0);
+	}
+	
+	public void bind(int slot) {
+		GLState.bindTexture(slot, GL_TEXTURE_2D_ARRAY, id);
+	}
+	
+	public void unbind() {
+		GLState.bindTexture(GL_TEXTURE_2D_ARRAY, 0);
+	}
+	
+	public void delete() {
+		GLState.deleteTexture(id);
+	}
+	
+	public int getId() {
+		return id;
+	}
+	
+	public int getWidth() {
+		return width;
+	}
+	
+	public int getHeight() {
+		return height;
+	}
+	
+	public int getLayers() {
+		return layers;
+	}
+	
+}
@@ -0,0 +1,172 @@
+package gl;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.GL_CLAMP_TO_EDGE;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.lwjgl.BufferUtils;
+
+import util.Log;
+
+/**
+ * Packs textures loaded between {@link #begin()} and {@link #end()} into a few large pages so that sprites can be batched
+ * without switching textures. Each image is surrounded by a 1 pixel border copied from its edge so linear filtering
+ * never picks up a neighbour
+ */
+public class TextureAtlas {
+	
+	private static final int MAX_PAGE_SIZE = 2048;
+	/** images bigger than this in either dimension keep their own texture */
+	private static final int MAX_ENTRY_SIZE = 1024;
+	private static final int PADDING = 1;
+	
+	private static boolean collecting = false;
+	/** side of the pages being built, no bigger than the driver allows */
+	private static int pageSize;
+	private static List<Entry> entries = new ArrayList<>();
+	private static List<Integer> pages = new ArrayList<>();
+	
+	/** Textures created after this call are packed into the atlas instead of getting their own GL texture */
+	public static void begin() {
+		collecting = true;
+		pageSize = Math.min(MAX_PAGE_SIZE, glGetInteger(GL_MAX_TEXTURE_SIZE));
+	}
+	
+	/**
+	 * @return <code>true</code> if <strong>image</strong> should go into the atlas currently being built. It has to fit
+	 *         on an empty page with its border, or packing would never place it
+	 */
+	static boolean accepts(ImageData image) {
+		int max = Math.min(MAX_ENTRY_SIZE, pageSize - PADDING * 2);
+		return collecting && image.getWidth() <= max && image.getHeight() <= max;
+	}
+	
+	static void add(Texture texture, ImageData image) {
+		entries.add(new Entry(texture, image));
+	}
+	
+	/** Packs and uploads everything collected since {@link #begin()} */
+	public static void end() {
+		collecting = false;
+		if(entries.isEmpty())
+			return;
+		
+		// shelf packing works best tallest first
+		Collections.sort(entries, (a, b) -> b.paddedHeight() - a.paddedHeight());
+		
+		int first = 0;
+		while(first < entries.size()) {
+			int last = pack(first, pageSize);
+			upload(first, last, pageSize);
+			first = last;
+		}
+		Log.log("Packed " + entries.size() + " textures into " + pages.size() + " atlas page(s)");
+		entries.clear();
+	}
+	
+	/**
+	 * Places entries on shelves starting at <strong>first</strong> until the page is full
+	 * @return index of the first entry which did not fit
+	 */
+	private static int pack(int first, int pageSize) {
+		List<int[]> shelves = new ArrayList<>(); // y, height, used width
+		int nextShelfY = 0;
+		int i = first;
+		for(; i < entries.size(); i++) {
+			Entry e = entries.get(i);
+			int[] shelf = null;
+			for(int[] s : shelves) {
+				if(e.paddedHeight() <= s[1] && s[2] + e.paddedWidth() <= pageSize) {
+					shelf = s;
+					break;
+				}
+			}
+			if(shelf == null) {
+				if(nextShelfY + e.paddedHeight() > pageSize)
+					break; // page is full
+				shelf = new int[] {nextShelfY, e.paddedHeight(), 0};
+				shelves.add(shelf);
+				nextShelfY += e.paddedHeight();
+			}
+			e.x = shelf[2];
+			e.y = shelf[0];
+			shelf[2] += e.paddedWidth();
+		}
+		return i;
+	}
+	
+	private static void upload(int first, int last, int pageSize) {
+		int pageHeight = 0;
+		for(int i = first; i < last; i++)
+			pageHeight = Math.max(pageHeight, entries.get(i).y + entries.get(i).paddedHeight());
+		
+		ByteBuffer pixels = BufferUtils.createByteBuffer(pageSize * pageHeight * 4);
+		for(int i = first; i < last; i++)
+			entries.get(i).copyInto(pixels, pageSize);
+		
+		int id = glGenTextures();
+		GLState.bindTexture(GL_TEXTURE_2D, id);
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+		glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA8, pageSize, pageHeight, 0, GL_RGBA, GL_UNSIGNED_BYTE, pixels);
+		GLState.bindTexture(GL_TEXTURE_2D, 0);
+		pages.add(id);
+		
+		for(int i = first; i < last; i++) {
+			Entry e = entries.get(i);
+			float u0 = (e.x + PADDING) / (float) pageSize;
+			float v0 = (e.y + PADDING) / (float) pageHeight;
+			float u1 = (e.x + PADDING + e.image.getWidth()) / (float) pageSize;
+			float v1 = (e.y + PADDING + e.image.getHeight()) / (float) pageHeight;
+			e.texture.setRegion(id, u0, v0, u1, v1);
+			e.image.free();
+		}
+	}
+	
+	public static void destroy() {
+		for(int id : pages)
+			GLState.deleteTexture(id);
+		pages.clear();
+	}
+	
+	private static class Entry {
+		Texture texture;
+		ImageData image;
+		int x;
+		int y;
+		
+		Entry(Texture texture, ImageData image) {
+			this.texture = texture;
+			this.image = image;
+		}
+		
+		int paddedWidth() {
+			return image.getWidth() + PADDING * 2;
+		}
+		
+		int paddedHeight() {
+			return image.getHeight() + PADDING * 2;
+		}
+		
+		/** copies the image into the page, repeating its outermost pixels into the padding */
+		void copyInto(ByteBuffer page, int pageWidth) {
+			ByteBuffer src = image.getPixels();
+			int w = image.getWidth();
+			int h = image.getHeight();
+			for(int py = 0; py < paddedHeight(); py++) {
+				int sy = Math.min(Math.max(py - PADDING, 0), h - 1);
+				for(int px = 0; px < paddedWidth(); px++) {
+					int sx = Math.min(Math.max(px - PADDING, 0), w - 1);
+					page.putInt(((y + py) * pageWidth + x + px) * 4, src.getInt((sy * w + sx) * 4));
+				}
+			}
+		}
+	}
+	
+}
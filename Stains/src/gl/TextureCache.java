@@ -0,0 +1,157 @@
+package gl;
+
+import static org.lwjgl.system.MemoryUtil.*;
+import static org.lwjgl.util.lz4.LZ4.*;
+import static org.lwjgl.util.xxhash.XXHash.XXH64;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import constants.Resources;
+import util.Log;
+
+/**
+ * Decoded images kept on disk so later launches skip decoding. Each source file gets one LZ4 compressed entry in
+ * <strong>data/cache/textures</strong>, named after a hash of its path. An entry remembers an xxHash of the file it
+ * was decoded from and is thrown away and written again as soon as that file's contents change.
+ * Entries are memory mapped and decompressed straight into the buffer that is uploaded. Safe to use from any thread
+ */
+public class TextureCache {
+
+	private static final String PATH = Resources.CACHE_PATH + "textures/";
+	private static final int MAGIC = 0x53545843; // STXC
+	private static final int VERSION = 1;
+	/** magic, version, source hash, width, height, compressed size */
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4 + 4;
+
+	public static boolean enabled = true;
+
+	private static AtomicInteger hits = new AtomicInteger();
+	private static AtomicInteger misses = new AtomicInteger();
+
+	/**
+	 * @param sourceHash xxHash of the source file's contents
+	 * @return the cached image or <code>null</code> if there is none or it is out of date
+	 */
+	static ImageData get(String path, long sourceHash) {
+		if(!enabled)
+			return null;
+		File file = entryFile(path);
+		if(!file.exists()) {
+			misses.incrementAndGet();
+			return null;
+		}
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			// the header is read plainly and the rest only mapped once it matches. A mapped file can't be replaced on
+			// Windows until the mapping is collected, and a stale entry is about to be
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			while(header.hasRemaining() && channel.read(header) > 0);
+			if(header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getLong(8) != sourceHash) {
+				misses.incrementAndGet();
+				return null; // from an older version or the source changed
+			}
+			int width = header.getInt(16);
+			int height = header.getInt(20);
+			int compressed = header.getInt(24);
+			if(compressed != channel.size() - HEADER_SIZE) {
+				Log.warn("Texture cache entry for " + path + " is damaged");
+				misses.incrementAndGet();
+				return null;
+			}
+
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, compressed);
+			ByteBuffer pixels = memAlloc(width * height * 4);
+			if(LZ4_decompress_safe(mapped, pixels) != pixels.remaining()) {
+				memFree(pixels);
+				Log.warn("Texture cache entry for " + path + " is damaged");
+				misses.incrementAndGet();
+				return null;
+			}
+			hits.incrementAndGet();
+			return ImageData.allocated(width, height, pixels);
+		} catch (IOException e) {
+			misses.incrementAndGet();
+			return null;
+		}
+	}
+
+	/**
+	 * Stores <strong>image</strong> as the decoded contents of the file at <strong>path</strong>, replacing any older entry
+	 */
+	static void put(String path, long sourceHash, ImageData image) {
+		if(!enabled)
+			return;
+		ByteBuffer pixels = image.getPixels();
+		ByteBuffer entry = memAlloc(HEADER_SIZE + LZ4_compressBound(pixels.remaining()));
+		try {
+			entry.order(ByteOrder.LITTLE_ENDIAN);
+			entry.position(HEADER_SIZE);
+			int compressed = LZ4_compress_default(pixels, entry.slice());
+			if(compressed <= 0) {
+				Log.warn("Cannot compress " + path + " for the texture cache");
+				return;
+			}
+			entry.putInt(0, MAGIC);
+			entry.putInt(4, VERSION);
+			entry.putLong(8, sourceHash);
+			entry.putInt(16, image.getWidth());
+			entry.putInt(20, image.getHeight());
+			entry.putInt(24, compressed);
+			entry.position(0).limit(HEADER_SIZE + compressed);
+
+			// written next to the entry and moved over it, so a reader never sees half a file
+			File file = entryFile(path);
+			file.getParentFile().mkdirs();
+			File temp = new File(file.getPath() + "." + Thread.currentThread().getId() + ".tmp");
+			try {
+				try(FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+					while(entry.hasRemaining())
+						channel.write(entry);
+				}
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			} catch (IOException e) {
+				Log.warn("Cannot write texture cache entry for " + path);
+				temp.delete(); // don't leave one behind every launch
+			}
+		} finally {
+			memFree(entry);
+		}
+	}
+
+	private static File entryFile(String path) {
+		ByteBuffer name = memUTF8(path, false);
+		try {
+			return new File(PATH + Long.toHexString(XXH64(name, 0)) + ".lz4");
+		} finally {
+			memFree(name);
+		}
+	}
+
+	/**
+	 * @return how many images came out of the cache since the last {@link #resetStats()}
+	 */
+	public static int getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return how many images had to be decoded since the last {@link #resetStats()}
+	 */
+	public static int getMisses() {
+		return misses.get();
+	}
+
+	public static void resetStats() {
+		hits.set(0);
+		misses.set(0);
+	}
+
+}
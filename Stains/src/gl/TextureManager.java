@@ -0,0 +1,195 @@
+package gl;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.GL_CLAMP_TO_EDGE;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.lwjgl.BufferUtils;
+
+import util.Log;
+
+/**
+ * Keeps textures created with <code>load</code> set to <code>false</code> in video memory only while they are needed.
+ * Such a texture is decoded in the background the first time it is bound or acquired, with a transparent placeholder
+ * bound in its place until it is uploaded. Loaded textures count against a memory budget, and when it is exceeded the
+ * least recently bound ones are evicted, textures nobody holds a reference to first. Textures bound in the frame just drawn
+ * or since are never evicted.
+ * Textures loaded at startup are permanent and don't count
+ */
+public class TextureManager {
+
+	private static long budget = 256L * 1024 * 1024;
+	private static long used = 0;
+	private static int frame = 0;
+	private static int placeholder;
+
+	/** loaded textures in order of use, least recently bound first */
+	private static LinkedHashMap<Texture, Texture> resident = new LinkedHashMap<>(16, 0.75f, true);
+	private static List<Request> pending = new ArrayList<>();
+	private static ExecutorService worker;
+
+	public static void init() {
+		worker = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "texture-loader");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		ByteBuffer pixel = BufferUtils.createByteBuffer(4); // transparent black
+		placeholder = glGenTextures();
+		GLState.bindTexture(GL_TEXTURE_2D, placeholder);
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+		glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA8, 1, 1, 0, GL_RGBA, GL_UNSIGNED_BYTE, pixel);
+		GLState.bindTexture(GL_TEXTURE_2D, 0);
+	}
+
+	/**
+	 * Uploads textures that finished decoding. Call once a frame, after the last one is drawn
+	 */
+	public static void update() {
+		frame++;
+		for(int i = 0; i < pending.size(); i++) {
+			Request request = pending.get(i);
+			if(!request.image.isDone())
+				continue;
+			pending.remove(i--);
+			ImageData image = null;
+			try {
+				image = request.image.get();
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+			if(!request.texture.isLoading()) { // deleted while it was decoding
+				if(image != null)
+					image.free();
+				continue;
+			}
+			if(image == null) {
+				Log.err("Cannot load " + request.texture.getPath() + ", keeping the placeholder");
+				continue; // still marked as loading, so it isn't requested again every bind
+			}
+			request.texture.upload(image);
+		}
+	}
+
+	/**
+	 * Starts loading <strong>texture</strong> in the background unless it already is
+	 */
+	static void request(Texture texture) {
+		if(texture.isLoading())
+			return;
+		texture.setLoading(true);
+		String path = texture.getPath();
+		pending.add(new Request(texture, worker.submit(() -> ImageData.load(path))));
+	}
+
+	/**
+	 * Binds the placeholder in place of <strong>texture</strong> and makes sure it is on its way
+	 */
+	static void bindPlaceholder(int slot, Texture texture) {
+		request(texture);
+		GLState.bindTexture(slot, GL_TEXTURE_2D, placeholder);
+	}
+
+	/** Called once <strong>texture</strong> is uploaded */
+	static void loaded(Texture texture) {
+		texture.setLoading(false);
+		resident.put(texture, texture);
+		used += texture.getSizeInBytes();
+		texture.setLastUsed(frame);
+		evict();
+	}
+
+	/** Called every time <strong>texture</strong> is bound */
+	static void touch(Texture texture) {
+		resident.get(texture); // moves it to the back of the line
+		texture.setLastUsed(frame);
+	}
+
+	/**
+	 * Frees <strong>texture</strong> now
+	 */
+	static void unload(Texture texture) {
+		if(resident.remove(texture) != null)
+			used -= texture.getSizeInBytes();
+		texture.unload();
+	}
+
+	/**
+	 * Evicts the least recently bound textures until the budget is met. Unreferenced ones go first
+	 */
+	private static void evict() {
+		for(int pass = 0; pass < 2 && used > budget; pass++) {
+			Iterator<Texture> it = resident.keySet().iterator();
+			while(it.hasNext() && used > budget) {
+				Texture texture = it.next();
+				// update() starts the frame before uploading, so what is on screen was bound last frame
+				if(texture.getLastUsed() >= frame - 1 || (pass == 0 && texture.getRefs() > 0))
+					continue;
+				it.remove();
+				used -= texture.getSizeInBytes();
+				texture.unload();
+			}
+		}
+		if(used > budget)
+			Log.warn("Textures in use take " + (used >> 20) + " MB, over the budget of " + (budget >> 20) + " MB");
+	}
+
+	/**
+	 * @param bytes Most video memory managed textures may take before some are evicted
+	 */
+	public static void setBudget(long bytes) {
+		budget = bytes;
+		evict();
+	}
+
+	public static long getBudget() {
+		return budget;
+	}
+
+	/** @return video memory currently taken by managed textures, in bytes */
+	public static long getUsed() {
+		return used;
+	}
+
+	public static void destroy() {
+		worker.shutdownNow();
+		for(Request request : pending) {
+			try {
+				ImageData image = request.image.isDone() ? request.image.get() : null;
+				if(image != null)
+					image.free();
+			} catch (Exception e) {
+				// it was never going to be used anyway
+			}
+		}
+		pending.clear();
+		for(Texture texture : resident.keySet())
+			texture.unload();
+		resident.clear();
+		used = 0;
+		GLState.deleteTexture(placeholder);
+	}
+
+	private static class Request {
+		Texture texture;
+		Future<ImageData> image;
+
+		Request(Texture texture, Future<ImageData> image) {
+			this.texture = texture;
+			this.image = image;
+		}
+	}
+
+}
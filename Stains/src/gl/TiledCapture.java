@@ -0,0 +1,292 @@
+package gl;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.*;
+import static org.lwjgl.opengl.GL30.*;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.joml.Matrix4f;
+import org.lwjgl.BufferUtils;
+
+import staindev.Game;
+import util.Bounds;
+import util.Camera;
+import util.Log;
+import util.PngWriter;
+
+/**
+ * Captures an area of the world of any size by rendering it in square tiles through one reused fbo.
+ * A row of tiles is rendered per {@link #step()}, so a huge capture is spread over many frames instead of freezing one.
+ * <p>
+ * As one PNG, each row of tiles is stitched into a strip as wide as the image and a single tile high and streamed into
+ * a {@link PngWriter} on the {@link PixelReader} worker, so no more than a few strips are ever in memory.
+ * As a pyramid, every tile is written to its own file in <code>level/column_row.png</code>, where level 0 is full size and
+ * every level above halves the resolution until one tile shows everything
+ */
+public class TiledCapture {
+
+	/** draws whatever belongs in a tile. Everything outside <strong>area</strong> can be skipped */
+	public interface Scene {
+		void render(Camera camera, Bounds area);
+	}
+
+	public static final int DEFAULT_TILE_SIZE = 1024;
+	/** rows or tiles that may wait on the worker before capturing pauses to let it catch up */
+	private static final int MAX_IN_FLIGHT = 4;
+
+	private float x;
+	private float y;
+	private int width;
+	private int height;
+	private int tileSize;
+	private Scene scene;
+
+	private String pngPath;
+	private String pyramidPath;
+	private Runnable whenDone;
+
+	private FrameBufferRenderBuffer fbo;
+	private IntBuffer pixels;
+	private Camera camera;
+	private Bounds area;
+	private Matrix4f levelProj;
+	private int levels;
+	private int level;
+	private int row;
+	private AtomicInteger inFlight;
+	private volatile boolean failed;
+	private boolean finished;
+
+	// only touched on the worker
+	private PngWriter png;
+
+	/**
+	 * @param x Left of the captured area in world coordinates
+	 * @param y Bottom of the captured area in world coordinates
+	 * @param width Width of the area, and of the image, in pixels
+	 * @param height Height of the area, and of the image, in pixels
+	 * @param tileSize Edge of a tile in pixels. Clamped to what the driver allows for a renderbuffer
+	 */
+	public TiledCapture(float x, float y, int width, int height, int tileSize, Scene scene) {
+		this.x = x;
+		this.y = y;
+		this.width = width;
+		this.height = height;
+		this.tileSize = Math.min(tileSize, maxTileSize());
+		this.scene = scene;
+		this.camera = new Camera(0, 0);
+		this.area = new Bounds();
+		this.inFlight = new AtomicInteger();
+		this.failed = false;
+		this.finished = false;
+		this.level = 0;
+		this.row = 0;
+	}
+
+	/**
+	 * @return the largest tile the driver can render in one go
+	 */
+	public static int maxTileSize() {
+		return glGetInteger(GL_MAX_RENDERBUFFER_SIZE);
+	}
+
+	/**
+	 * Writes the whole area as one PNG to <strong>path</strong>
+	 */
+	public TiledCapture toPNG(String path) {
+		this.pngPath = path;
+		return this;
+	}
+
+	/**
+	 * Also writes a tile pyramid into the directory <strong>path</strong>
+	 */
+	public TiledCapture toPyramid(String path) {
+		this.pyramidPath = path;
+		return this;
+	}
+
+	/**
+	 * @param whenDone Run on the render thread once every file is written
+	 */
+	public TiledCapture whenDone(Runnable whenDone) {
+		this.whenDone = whenDone;
+		return this;
+	}
+
+	/**
+	 * Renders and reads back the next row of tiles. Call once a frame on the render thread until it returns <code>true</code>
+	 * @return <code>true</code> once every tile has been handed to the worker, or the capture failed
+	 */
+	public boolean step() {
+		if(finished)
+			return true;
+		if(failed) {
+			finish();
+			return true;
+		}
+		if(fbo == null)
+			start();
+		if(inFlight.get() >= MAX_IN_FLIGHT)
+			return false; // the worker is behind, try again next frame
+
+		int scale = 1 << level;
+		int span = tileSize * scale; // world units covered by one tile at this level
+		int columns = (width + span - 1) / span;
+		int rows = (height + span - 1) / span;
+		float top = y + height - (float) row * span;
+		int rowHeight = Math.min(tileSize, (height - row * span + scale - 1) / scale); // pixels
+
+		boolean writePng = level == 0 && pngPath != null;
+		int[] strip = writePng ? new int[width * rowHeight] : null;
+
+		fbo.activate();
+		if(level > 0)
+			Game.proj = levelProj;
+		for(int column = 0; column < columns; column++) {
+			int tileWidth = Math.min(tileSize, (width - column * span + scale - 1) / scale);
+			camera.x = x + (float) column * span;
+			camera.y = top - (float) rowHeight * scale;
+			area.set(camera.x, camera.y, camera.x + tileWidth * scale, top);
+
+			glClear(GL_COLOR_BUFFER_BIT);
+			scene.render(camera, area);
+			Renderer.flush();
+
+			// a tile is small, so reading it back right away costs a short stall instead of a pixel buffer per tile
+			pixels.clear();
+			glReadBuffer(GL_COLOR_ATTACHMENT0);
+			glReadPixels(0, 0, tileWidth, rowHeight, GL_BGRA, GL_UNSIGNED_INT_8_8_8_8_REV, pixels);
+
+			if(strip != null)
+				copyFlipped(pixels, tileWidth, rowHeight, strip, width, column * tileSize);
+			if(pyramidPath != null) {
+				BufferedImage tile = new BufferedImage(tileWidth, rowHeight, BufferedImage.TYPE_INT_RGB);
+				copyFlipped(pixels, tileWidth, rowHeight, ((DataBufferInt) tile.getRaster().getDataBuffer()).getData(), tileWidth, 0);
+				writeTile(tile, new File(pyramidPath, level + "/" + column + "_" + row + ".png"));
+			}
+		}
+		fbo.deactivate();
+
+		if(strip != null)
+			writeStrip(strip, rowHeight);
+
+		row++;
+		if(row == rows) {
+			row = 0;
+			level++;
+			if(level == levels) {
+				finish();
+				return true;
+			}
+			int next = tileSize << level;
+			levelProj = new Matrix4f().ortho(0, next, 0, next, -1, 1); // a new instance, so the camera block is uploaded again
+		}
+		return false;
+	}
+
+	/**
+	 * Stops capturing. Files already being written are finished, the PNG is left incomplete
+	 */
+	public void cancel() {
+		failed = true;
+		finish();
+	}
+
+	private void start() {
+		fbo = new FrameBufferRenderBuffer(tileSize, tileSize);
+		pixels = BufferUtils.createIntBuffer(tileSize * tileSize);
+		levels = 1;
+		if(pyramidPath != null)
+			while((tileSize << (levels - 1)) < Math.max(width, height))
+				levels++;
+		Renderer.setClearColor(0, 0, 0);
+		Log.log("Capturing " + width + "x" + height + " in tiles of " + tileSize + (levels > 1 ? ", " + levels + " levels" : ""));
+	}
+
+	private void finish() {
+		if(finished)
+			return;
+		finished = true;
+		if(fbo != null) {
+			fbo.delete();
+			fbo = null;
+		}
+		pixels = null;
+		// queued behind every strip and tile, so it runs once they are all written
+		PixelReader.runOnWorker(() -> {
+			if(png != null) {
+				try {
+					png.close();
+				} catch (IOException e) {
+					Log.err("Cannot finish " + pngPath);
+					e.printStackTrace();
+				}
+				png = null;
+			}
+			if(!failed && whenDone != null)
+				PixelReader.runOnRenderThread(whenDone);
+		});
+	}
+
+	private void writeStrip(int[] strip, int rows) {
+		inFlight.incrementAndGet();
+		PixelReader.runOnWorker(() -> {
+			try {
+				if(failed)
+					return;
+				if(png == null) {
+					File file = new File(pngPath);
+					if(file.getParentFile() != null)
+						file.getParentFile().mkdirs();
+					png = new PngWriter(file, width, height);
+				}
+				for(int i = 0; i < rows; i++)
+					png.writeRow(strip, i * width);
+			} catch (IOException e) {
+				Log.err("Cannot write to file: " + pngPath);
+				e.printStackTrace();
+				failed = true;
+			} finally {
+				inFlight.decrementAndGet();
+			}
+		});
+	}
+
+	private void writeTile(BufferedImage tile, File file) {
+		inFlight.incrementAndGet();
+		PixelReader.runOnWorker(() -> {
+			try {
+				if(failed)
+					return;
+				file.getParentFile().mkdirs();
+				ImageIO.write(tile, "png", file);
+			} catch (IOException e) {
+				Log.err("Cannot write to file: " + file);
+				e.printStackTrace();
+				failed = true;
+			} finally {
+				inFlight.decrementAndGet();
+			}
+		});
+	}
+
+	/**
+	 * Copies <strong>width</strong> by <strong>height</strong> bottom up pixels into <strong>dest</strong> top down, starting at column <strong>offset</strong>
+	 */
+	private static void copyFlipped(IntBuffer src, int width, int height, int[] dest, int destWidth, int offset) {
+		for(int i = 0; i < height; i++) {
+			src.position((height - 1 - i) * width);
+			src.get(dest, i * destWidth + offset, width);
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+package gl;
+
+import static org.lwjgl.opengl.GL20.*;
+
+import java.nio.FloatBuffer;
+
+import org.joml.Matrix4f;
+import org.joml.Vector4f;
+import org.lwjgl.BufferUtils;
+
+/**
+ * A uniform whose location has already been looked up. Hold on to one of these instead of setting uniforms by name in render code.
+ * The program it belongs to must be bound when setting it
+ */
+public class Uniform {
+	
+	private int location;
+	private FloatBuffer buffer; // only created for vector and matrix uniforms
+	
+	Uniform(int location) {
+		this.location = location;
+	}
+	
+	public void set(float a, float b, float c, float d) {
+		glUniform4f(location, a, b, c, d);
+	}
+	
+	public void set(float a, float b, float c) {
+		glUniform3f(location, a, b, c);
+	}
+	
+	public void set(float a, float b) {
+		glUniform2f(location, a, b);
+	}
+	
+	public void set(float a) {
+		glUniform1f(location, a);
+	}
+	
+	public void set(int a) {
+		glUniform1i(location, a);
+	}
+	
+	public void set(Vector4f a) {
+		if(buffer == null)
+			buffer = BufferUtils.createFloatBuffer(4);
+		glUniform4fv(location, a.get(buffer));
+	}
+	
+	public void set(Matrix4f a) {
+		if(buffer == null || buffer.capacity() < 16)
+			buffer = BufferUtils.createFloatBuffer(16); // so we don't have to create a 16-float buffer every time we call this
+		glUniformMatrix4fv(location, false, a.get(buffer));
+	}
+	
+	public int getLocation() {
+		return location;
+	}
+	
+}
@@ -0,0 +1,61 @@
+package gl;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL30.glBindBufferBase;
+import static org.lwjgl.opengl.GL31.*;
+
+import java.nio.FloatBuffer;
+
+import org.joml.Matrix4f;
+import org.lwjgl.BufferUtils;
+
+import constants.Sizeof;
+
+/**
+ * A <code>std140</code> uniform block shared by every program which declares it. Written once and read by all of them
+ */
+public class UniformBuffer {
+	
+	/** binding point of <code>uniform Camera { mat4 u_View; mat4 u_Proj; }</code>. Bound automatically by {@link Shader} */
+	public static final int CAMERA_BINDING = 0;
+	public static final String CAMERA_BLOCK = "Camera";
+	
+	private int id;
+	private int binding;
+	private FloatBuffer staging;
+	
+	/**
+	 * @param floats Size of the block in floats, already padded to std140 rules
+	 * @param binding Binding point the block is attached to
+	 */
+	public UniformBuffer(int floats, int binding) {
+		this.binding = binding;
+		this.staging = BufferUtils.createFloatBuffer(floats);
+		id = glGenBuffers();
+		GLState.bindBuffer(GL_UNIFORM_BUFFER, id);
+		glBufferData(GL_UNIFORM_BUFFER, (long) floats * Sizeof.FLOAT, GL_DYNAMIC_DRAW);
+		glBindBufferBase(GL_UNIFORM_BUFFER, binding, id);
+	}
+	
+	/**
+	 * Writes a matrix at a float offset. A mat4 is 16 floats under std140
+	 */
+	public void set(int offset, Matrix4f matrix) {
+		matrix.get(offset, staging);
+	}
+	
+	/** Uploads everything written with {@link #set(int, Matrix4f)} */
+	public void upload() {
+		GLState.bindBuffer(GL_UNIFORM_BUFFER, id);
+		glBufferSubData(GL_UNIFORM_BUFFER, 0, staging);
+	}
+	
+	public void delete() {
+		GLState.deleteBuffer(id);
+	}
+	
+	public int getBinding() {
+		return binding;
+	}
+	
+}
@@ -11,11 +11,11 @@ public class VertexArray {
 	}
 	
 	public void bind() {
-		glBindVertexArray(id);
+		GLState.bindVertexArray(id);
 	}
 	
 	public void unbind() {
-		glBindVertexArray(0);
+		GLState.bindVertexArray(0);
 	}
 	
 	public void addBuffer(VertexBuffer vbo) {
@@ -24,8 +24,14 @@ public class VertexArray {
 		vbo.getFormat().enable();
 	}
 	
+	public void addBuffer(StreamingVertexBuffer vbo) {
+		bind();
+		vbo.bind();
+		vbo.getFormat().enable();
+	}
+	
 	public void delete() {
-		glDeleteVertexArrays(id);
+		GLState.deleteVertexArray(id);
 	}
 	
 }
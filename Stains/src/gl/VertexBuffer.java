@@ -2,29 +2,87 @@ package gl;
 
 import static org.lwjgl.opengl.GL15.*;
 
+import java.nio.FloatBuffer;
+
+import constants.Sizeof;
+
 public class VertexBuffer {
 
 	private int id;
 	private VertexBufferFormat format;
+	private long size;
+	private int usage;
 	
 	public VertexBuffer(float[] data, VertexBufferFormat format) {
 		id = glGenBuffers();
 		format.finalize();
 		this.format = format;
+		this.size = (long) data.length * Sizeof.FLOAT;
+		this.usage = GL_STATIC_DRAW;
 		bind();
 		glBufferData(GL_ARRAY_BUFFER, data, GL_STATIC_DRAW);
 	}
 	
+	/**
+	 * Creates an empty buffer intended to be refilled every frame with {@link #setData(FloatBuffer)}
+	 * @param floats Maximum number of floats the buffer will ever hold
+	 */
+	public VertexBuffer(int floats, VertexBufferFormat format) {
+		this(floats, format, GL_STREAM_DRAW);
+	}
+	
+	/**
+	 * Creates an empty buffer with a usage hint, e.g. <code>GL_STATIC_DRAW</code> for geometry that is filled with
+	 * {@link #setSubData(long, FloatBuffer)} and rarely changes
+	 * @param floats Number of floats the buffer holds
+	 */
+	public VertexBuffer(int floats, VertexBufferFormat format, int usage) {
+		id = glGenBuffers();
+		format.finalize();
+		this.format = format;
+		this.size = (long) floats * Sizeof.FLOAT;
+		this.usage = usage;
+		bind();
+		glBufferData(GL_ARRAY_BUFFER, size, usage);
+	}
+	
+	/**
+	 * Replaces the contents of a streamed buffer. The old storage is orphaned first so the driver doesn't wait for draws still using it
+	 */
+	public void setData(FloatBuffer data) {
+		bind();
+		glBufferData(GL_ARRAY_BUFFER, size, usage);
+		glBufferSubData(GL_ARRAY_BUFFER, 0, data);
+	}
+	
+	/**
+	 * Overwrites part of the buffer without touching the rest
+	 * @param offset Offset in floats
+	 */
+	public void setSubData(long offset, FloatBuffer data) {
+		bind();
+		glBufferSubData(GL_ARRAY_BUFFER, offset * Sizeof.FLOAT, data);
+	}
+	
+	/**
+	 * Reallocates the buffer to hold a new number of floats. The contents are lost
+	 */
+	public void resize(int floats) {
+		size = (long) floats * Sizeof.FLOAT;
+		bind();
+		glBufferData(GL_ARRAY_BUFFER, size, usage);
+	}
+	
 	public void bind() {
-		glBindBuffer(GL_ARRAY_BUFFER, id);
+		GLState.bindBuffer(GL_ARRAY_BUFFER, id);
 	}
 	
 	public void unbind() {
-		glBindBuffer(GL_ARRAY_BUFFER, 0);
+		GLState.bindBuffer(GL_ARRAY_BUFFER, 0);
 	}
 	
 	public void delete() {
-		glDeleteBuffers(id);
+		GLState.deleteBuffer(id);
 	}
 	
 	public VertexBufferFormat getFormat() {
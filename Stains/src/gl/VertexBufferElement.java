@@ -1,6 +1,7 @@
 package gl;
 
 import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL33.*;
 
 public class VertexBufferElement {
 	
@@ -10,13 +11,19 @@ public class VertexBufferElement {
 	private boolean normalized;
 	private int stride;
 	private int offset;
+	private int divisor;
 	
-	public VertexBufferElement(int index, int type, int count, boolean normalized, int offset) {
+	public VertexBufferElement(int index, int type, int count, boolean normalized, int offset, int divisor) {
 		this.index = index;
 		this.type = type;
 		this.count = count;
 		this.normalized = normalized;
 		this.offset = offset;
+		this.divisor = divisor;
+	}
+	
+	public VertexBufferElement(int index, int type, int count, boolean normalized, int offset) {
+		this(index, type, count, normalized, offset, 0);
 	}
 	
 	/**
@@ -30,6 +37,8 @@ public class VertexBufferElement {
 	public void enable() {
 		glEnableVertexAttribArray(index);
 		glVertexAttribPointer(index, count, type, normalized, stride, offset);
+		if(divisor != 0)
+			glVertexAttribDivisor(index, divisor);
 	}
 	
 	public int getIndex() {
@@ -56,4 +65,8 @@ public class VertexBufferElement {
 		return offset;
 	}
 	
+	public int getDivisor() {
+		return divisor;
+	}
+	
 }
@@ -11,26 +11,37 @@ public class VertexBufferFormat {
 	
 	private int nextIndex;
 	private int stride; // is offset until done, the final offset becomes the stride
+	private int divisor;
 	private List<VertexBufferElement> elements;
 	
 	public VertexBufferFormat() {
-		nextIndex = 0;
+		this(0, 0);
+	}
+	
+	/**
+	 * Creates a format whose attributes don't start at location 0, e.g. to sit next to another buffer in the same VAO
+	 * @param firstIndex Attribute location of the first element pushed
+	 * @param divisor 0 to advance every vertex, or n to advance every n instances
+	 */
+	public VertexBufferFormat(int firstIndex, int divisor) {
+		nextIndex = firstIndex;
 		stride = 0;
+		this.divisor = divisor;
 		elements = new ArrayList<>();
 	}
 	
 	public void pushFloat(int count) {
-		elements.add(new VertexBufferElement(nextIndex++, GL_FLOAT, count, false, stride));
+		elements.add(new VertexBufferElement(nextIndex++, GL_FLOAT, count, false, stride, divisor));
 		stride += Sizeof.FLOAT * count;
 	}
 	
 	public void pushInt(int count) {
-		elements.add(new VertexBufferElement(nextIndex++, GL_UNSIGNED_INT, count, false, stride));
+		elements.add(new VertexBufferElement(nextIndex++, GL_UNSIGNED_INT, count, false, stride, divisor));
 		stride += Sizeof.INT * count;
 	}
 	
 	public void pushChar(int count) {
-		elements.add(new VertexBufferElement(nextIndex++, GL_UNSIGNED_BYTE, count, true, stride));
+		elements.add(new VertexBufferElement(nextIndex++, GL_UNSIGNED_BYTE, count, true, stride, divisor));
 		stride += Sizeof.CHAR * count;
 	}
 	
@@ -38,6 +49,13 @@ public class VertexBufferFormat {
 		return elements;
 	}
 
+	/**
+	 * @return size of one vertex in bytes
+	 */
+	public int getStride() {
+		return stride;
+	}
+
 	protected void finalize() {
 		for(VertexBufferElement element : elements)
 			element.finalize(stride);
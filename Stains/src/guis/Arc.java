@@ -1,30 +1,38 @@
 package guis;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import org.joml.Vector2f;
 import org.joml.Vector4f;
 
+import constants.Shaders;
+import gl.Renderable;
+import gl.Renderer;
 import staindev.Game;
+import util.Bounded;
+import util.Bounds;
 import util.Camera;
 
-public class Arc {
+public class Arc implements Renderable, Bounded {
 
-	private List<Segment> segments;
+	/** x, y pairs of the polyline approximating the arc. Only the first <code>pointCount</code> are valid */
+	private float[] points;
+	private int pointCount;
 	private Segment tangent1, tangent2;
 	private float distance;
 	private boolean altered;
 	private float radius;
 	private float width;
 	private Vector4f color;
+	private Bounds bounds = new Bounds();
 	
 	public Arc(Segment tangent1, Segment tangent2, float distance, float width, int r, int g, int b, int a) {
 		this(tangent1, tangent2, distance, width, new Vector4f(r / 255.0f, g / 255.0f, b / 255.0f, a / 255.0f));
 	}
 	
 	public Arc(Segment tangent1, Segment tangent2, float distance, float width, Vector4f color) {
-		this.segments = new ArrayList<>();
+		this.points = new float[0];
+		this.pointCount = 0;
 		this.tangent1 = tangent1;
 		this.tangent2 = tangent2;
 		this.distance = distance;
@@ -38,12 +46,13 @@ public class Arc {
 	}
 	
 	/**
-	 * Generate line segments for drawing an arc which is tangent to the two <em>tangent</em> lines 
+	 * Generate the polyline for drawing an arc which is tangent to the two <em>tangent</em> lines 
 	 * and passes through a point <em>distance</em> away from the corner. Radius is not guarenteed until
 	 * this method is run, whether called explicitly or run by <code>render()</code>
 	 */
 	public void generateSegments() { // wrote this myself. wanted to die // TODO put limit on radius so it cant span further than the smallest line
-		segments.clear();
+		pointCount = 0;
+		bounds.set(0, 0, 0, 0);
 		if(tangent1 == null || tangent2 == null)
 			return; // invalid tangents
 		Vector2f corner = tangent1.findCorner(tangent2);
@@ -99,29 +108,48 @@ public class Arc {
 		float da = (PI - theta) / n;
 		float a = phiNorm;
 		
+		if(points.length < (n + 2) * 2)
+			points = new float[(n + 2) * 2];
+		addPoint(x1, y1);
+		bounds.set(x1, y1, x1, y1);
 		for(int i = 0; i <= n; i++) {
 			float x2 = (float) (radius * Math.cos(a) + cx);
 			float y2 = (float) (radius * Math.sin(a) + cy);
 			if(x1 != x2 || y1 != y2) {
-				segments.add(new Segment(x1, y1, x2, y2, width, color));
+				addPoint(x2, y2);
+				bounds.set(Math.min(bounds.minX, x2), Math.min(bounds.minY, y2), Math.max(bounds.maxX, x2), Math.max(bounds.maxY, y2));
 				x1 = x2;
 				y1 = y2;
 			}
 			a += da;
 		}
+		if(pointCount < 2) {
+			pointCount = 0; // not even one segment
+			bounds.set(0, 0, 0, 0);
+		} else {
+			float pad = width / 2;
+			bounds.set(bounds.minX - pad, bounds.minY - pad, bounds.maxX + pad, bounds.maxY + pad);
+		}
+	}
+	
+	private void addPoint(float x, float y) {
+		points[pointCount * 2] = x;
+		points[pointCount * 2 + 1] = y;
+		pointCount++;
 	}
 	
 	/**
 	 * Renders this arc to the screen using a camera
 	 * @param camera
 	 */
+	@Override
 	public void render(Camera camera) {
 		if(altered) {
 			generateSegments();
 			altered = false;
 		}
-		for(Segment seg : segments)
-			seg.render(camera);
+		Renderer.setCamera(camera);
+		Renderer.LINES.drawPolyline(points, pointCount, width, color);
 	}
 	
 	/**
@@ -131,6 +159,28 @@ public class Arc {
 		render(Game.nullCamera);
 	}
 	
+	@Override
+	public int getSortShader() {
+		return Shaders.LINE.getId();
+	}
+	
+	@Override
+	public int getSortTexture() {
+		return 0; // lines of any width share a batch
+	}
+	
+	/**
+	 * @return bounds of every segment of the arc, generating them first if anything changed
+	 */
+	@Override
+	public Bounds getBounds() {
+		if(altered) {
+			generateSegments();
+			altered = false;
+		}
+		return bounds;
+	}
+	
 	public void setTangent1(Segment tangent1) {
 		this.tangent1 = tangent1;
 		altered = true;
@@ -158,15 +208,32 @@ public class Arc {
 		return distance;
 	}
 	
+	/**
+	 * Changes the drawn width. The bounds keep the width the arc was generated with
+	 */
 	public void setWidth(float width) {
-		for(Segment segment : segments)
-			segment.setWidth(width);
+		this.width = width;
 	}
 	
 	public float getWidth() {
 		return width;
 	}
 	
+	/**
+	 * @return x, y pairs of the arc's polyline, valid up to {@link #getPointCount()}. Call {@link #getBounds()} first so it is up to date
+	 */
+	public float[] getPoints() {
+		return points;
+	}
+	
+	public int getPointCount() {
+		return pointCount;
+	}
+	
+	public Vector4f getColor() {
+		return color;
+	}
+	
 	public float getRadius() {
 		return radius;
 	}
@@ -6,12 +6,14 @@ import org.joml.Matrix4f;
 import org.joml.Vector4f;
 
 import constants.Shaders;
+import gl.Renderable;
+import gl.Renderer;
 import gl.Shader;
+import gl.Uniform;
 import objects.Point;
-import staindev.Game;
 import util.Camera;
 
-public class Dot {
+public class Dot implements Renderable {
 	
 	private float x;
 	private float y;
@@ -19,11 +21,11 @@ public class Dot {
 	private Vector4f color;
 	
 	private Shader program;
+	private Uniform colorUniform;
+	private Uniform modelUniform;
 	
 	// preallocations
-	private Matrix4f proj = new Matrix4f();
 	private Matrix4f model = new Matrix4f();
-	private Matrix4f mvp = new Matrix4f();
 	
 	/**
 	 * Creates a Point with a size
@@ -38,21 +40,33 @@ public class Dot {
 		this.color = new Vector4f();
 		setColor(r, g, b, a);
 		this.program = Shaders.COLOR;
+		this.colorUniform = program.getUniform("u_Color");
+		this.modelUniform = program.getUniform("u_Model");
 	}
 
+	@Override
 	public void render(Camera camera) {
+		Renderer.flush(); // anything batched before this has to be drawn first
+		Renderer.setCamera(camera);
 		program.bind();
 		Point.bind(); // binds the VAO
-		program.set("u_Color", color);
-		// just translate
-		proj.set(Game.proj);
-		model = model.translation(x + 0.5f - camera.x, y - camera.y, 0);
-		mvp = proj.mul(model); // M x V x P
-		program.set("u_MVP", mvp);
+		colorUniform.set(color);
+		// just translate. View and projection come from the camera block
+		modelUniform.set(model.translation(x + 0.5f, y, 0));
 		glPointSize(size);
 		glDrawElements(GL_POINTS, Point.ibo.length, GL_UNSIGNED_INT, 0);
 	}
 	
+	@Override
+	public int getSortShader() {
+		return program.getId();
+	}
+	
+	@Override
+	public int getSortTexture() {
+		return 0; // untextured
+	}
+	
 	public void setPos(float x1, float y1) {
 		x = x1;
 		y = y1;
@@ -1,25 +1,19 @@
 package guis;
 
-import static org.lwjgl.opengl.GL11.*;
-
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-import javax.imageio.ImageIO;
-
 import org.joml.Vector2f;
 import org.lwjgl.glfw.GLFW;
 
+import constants.Layer;
 import constants.Mode;
 import constants.Resources;
 import constants.Sounds;
 import constants.StainType;
 import constants.Textures;
-import gl.FrameBufferRenderBuffer;
-import gl.Renderer;
+import gl.RenderQueue;
+import gl.TiledCapture;
 import guis.elements.Button;
 import guis.elements.RadioButton;
 import guis.elements.RadioButtonChannel;
@@ -27,6 +21,7 @@ import objects.GameObject;
 import objects.Map;
 import objects.Spawner;
 import staindev.Game;
+import util.Bounds;
 import util.Camera;
 import util.ClickListener;
 import util.Cursors;
@@ -44,7 +39,7 @@ public class EditorScreen extends Gui implements ClickListener {
 	private Dot ghostDot;
 	private Arc ghostArc;
 	private Map map;
-	private Segment[] gridLines;
+	private Grid grid;
 	private GameObject spawnPoint;
 	private List<Button> placeMenuButtons;
 	private PlaceType placeType;
@@ -69,6 +64,11 @@ public class EditorScreen extends Gui implements ClickListener {
 	
 	private Segment intersecting;
 	
+	// reused every frame for whatever the camera can see
+	private List<Spawner> visibleSpawners = new ArrayList<>();
+	private TiledCapture capture;
+	private List<Segment> captureWalls = new ArrayList<>();
+	
 	private int GRID_SIZE, GRID_WIDTH, GRID_HEIGHT, GRID_MAX_X, GRID_MAX_Y;
 	protected float WALL_WIDTH;
 	
@@ -105,10 +105,11 @@ public class EditorScreen extends Gui implements ClickListener {
 		}));
 		elements.add(new Button(Game.WIDTH * 0.97f, Game.HEIGHT * 0.95f, 0.08f, Textures.Editor.SAVE, Mode.EDITOR, true, () -> {
 			map.saveMap();
-			if(Key.down(GLFW.GLFW_KEY_LEFT_SHIFT) || Key.down(GLFW.GLFW_KEY_RIGHT_SHIFT))
-				saveMapImage();
+			if(Key.down(GLFW.GLFW_KEY_LEFT_SHIFT) || Key.down(GLFW.GLFW_KEY_RIGHT_SHIFT)) // holding control as well also writes a zoomable tile pyramid
+				saveMapImage(Key.down(GLFW.GLFW_KEY_LEFT_CONTROL) || Key.down(GLFW.GLFW_KEY_RIGHT_CONTROL));
 		}));
 		elements.add(new Button(Game.WIDTH * 0.90f, Game.HEIGHT * 0.95f, 0.08f, Textures.Editor.LOAD, Mode.EDITOR, true, () -> {
+			map.delete();
 			map = Map.loadMap();
 		}));
 		
@@ -172,15 +173,10 @@ public class EditorScreen extends Gui implements ClickListener {
 		this.GRID_SIZE = 35;
 		this.GRID_WIDTH = 100;
 		this.GRID_HEIGHT = 60;
-		this.gridLines = new Segment[GRID_WIDTH + GRID_HEIGHT];
 		this.GRID_MAX_X = (GRID_WIDTH - 1) * GRID_SIZE;
 		this.GRID_MAX_Y = (GRID_HEIGHT - 1) * GRID_SIZE;
 		
-		float gridline_width = 1.0f;
-		for(int c = 0; c < GRID_WIDTH; c++)
-			gridLines[c] = new Segment(c * GRID_SIZE, 0, c * GRID_SIZE, GRID_MAX_Y, gridline_width, 0, 0, 50, 255);
-		for(int r = 0; r < GRID_HEIGHT; r++)
-			gridLines[GRID_WIDTH + r] = new Segment(0, r * GRID_SIZE, GRID_MAX_X, r * GRID_SIZE, gridline_width, 0, 0, 50, 255);
+		this.grid = new Grid(GRID_SIZE, GRID_MAX_X, GRID_MAX_Y, 1.0f, 0, 0, 50, 255);
 		
 		ClickListener.addToCallback(this, Mode.EDITOR);
 		instance = this;
@@ -279,39 +275,43 @@ public class EditorScreen extends Gui implements ClickListener {
 		}
 	}
 	
+	@Override
 	public void render() {
+		if(capture != null && capture.step())
+			capture = null;
 		super.renderBackground();
-		// XXX grid possibly more effecient rendering?
-		for(Segment gridLine : gridLines)
-			gridLine.render(camera);
+		Bounds view = camera.getView();
+		RenderQueue.submit(grid, Layer.GRID, camera); // one quad, lines are computed in the shader
 		super.renderElements();
-		for(Arc arc : map.fillets)
-			arc.render(camera);
+		RenderQueue.submit(map.getMesh(), Layer.WALLS, camera); // every wall and fillet in one draw
+		if(intersecting != null)
+			RenderQueue.submit(intersecting, Layer.GHOSTS, camera); // the highlight color isn't baked into the mesh
 		if(tool == Tool.FILLET) { // render extra ghost arc for the fillet tool
 			if(filletSelectingRadius) {
-				ghostArc.render(camera);
+				RenderQueue.submit(ghostArc, Layer.GHOSTS, camera);
 			}
 		}
-		for(Segment wall : map.walls)
-			wall.render(camera);
 		if(tool == Tool.LINE) { // we only need extra ghost wall rendering for the line tool
 			if(isOnMap()) {
 				if(firstPointDown)
-					ghostWall.render(camera);
+					RenderQueue.submit(ghostWall, Layer.GHOSTS, camera);
 				else
-					ghostDot.render(camera);
+					RenderQueue.submit(ghostDot, Layer.GHOSTS, camera);
 			}
 		}
-		spawnPoint.render(camera);
-		for(GameObject spawner : map.spawners)
-			spawner.render(camera);
+		if(camera.isVisible(spawnPoint.getBounds()))
+			RenderQueue.submit(spawnPoint, Layer.OBJECTS, camera);
+		visibleSpawners.clear();
+		map.querySpawners(view, visibleSpawners);
+		for(Spawner spawner : visibleSpawners)
+			RenderQueue.submit(spawner, Layer.OBJECTS, camera);
 		if(tool == Tool.PLACE) {
 			if(showingPlaceMenu) {
-				placeMenuBackground.render();
+				RenderQueue.submit(placeMenuBackground, Layer.MENU, Game.nullCamera);
 				for(Button b : placeMenuButtons)
-					b.render();
+					RenderQueue.submit(b, Layer.MENU, 1, Game.nullCamera); // above the menu background
 			} else { // placing
-				placing.render(camera);
+				RenderQueue.submit(placing, Layer.OBJECTS, 1, camera); // above what is already placed
 			}
 		}
 	}
@@ -327,7 +327,7 @@ public class EditorScreen extends Gui implements ClickListener {
 			case FILLET:
 				if(button == Mouse.LEFT) {
 					if(filletSelectingRadius) {
-						map.fillets.add(new Arc(ghostArc.getTangent1(), ghostArc.getTangent2(), ghostArc.getDistance(), WALL_WIDTH, 250, 250, 250, 255));
+						map.addFillet(new Arc(ghostArc.getTangent1(), ghostArc.getTangent2(), ghostArc.getDistance(), WALL_WIDTH, 250, 250, 250, 255));
 						filletFirstSelection = false;
 						filletSelectingRadius = false;
 					} else if(intersecting != null) {
@@ -359,7 +359,7 @@ public class EditorScreen extends Gui implements ClickListener {
 					int clickY = mouseGridY();
 					if(!(clickX == firstClickX && clickY == firstClickY && firstPointDown)) { // don't do anything if starting point and ending point are the same
 						if(firstPointDown)
-							map.walls.add(new Segment(firstClickX, firstClickY, clickX, clickY, WALL_WIDTH, 250, 250, 250, 255)); // FIXME no duplicate walls and no intersections. color red if these
+							map.addWall(new Segment(firstClickX, firstClickY, clickX, clickY, WALL_WIDTH, 250, 250, 250, 255)); // FIXME no duplicate walls and no intersections. color red if these
 						firstClickX = clickX; // start next wall off where this one ended
 						firstClickY = clickY;
 						ghostWall.setStartPoint(firstClickX, firstClickY);
@@ -374,7 +374,7 @@ public class EditorScreen extends Gui implements ClickListener {
 					if(intersecting == null) {
 						// TODO bounding box
 					} else {
-						map.walls.remove(intersecting);
+						map.removeWall(intersecting);
 					}
 				}
 				break;
@@ -388,7 +388,7 @@ public class EditorScreen extends Gui implements ClickListener {
 						case SPAWNER:
 							Spawner toAdd = new Spawner(placeSpawnerType, (int) placing.x, (int) placing.y);
 							toAdd.setActiveTexture(placing.getActiveTexture());
-							map.spawners.add(toAdd);
+							map.addSpawner(toAdd);
 						case NONE:
 							break;
 						case SPAWNPOINT:
@@ -438,7 +438,9 @@ public class EditorScreen extends Gui implements ClickListener {
 	}
 	
 	
-	private void saveMapImage() {
+	private void saveMapImage(boolean pyramid) {
+		if(capture != null)
+			return; // still busy with the last one
 		float minX = spawnPoint.x;
 		float maxX = minX;
 		float minY = spawnPoint.y;
@@ -454,43 +456,43 @@ public class EditorScreen extends Gui implements ClickListener {
 		int width = (int) (maxX - minX) + bufferX * 2;
 		int height = (int) (maxY - minY) + 1 + bufferY * 2;
 		
-		Camera fboCam = new Camera(minX - bufferX, minY - bufferY);
-		FrameBufferRenderBuffer fbo = new FrameBufferRenderBuffer(width, height);
-		fbo.activate();// render to the renderbuffer instead of the default fbo for displaying
-		Renderer.setClearColor(0, 0, 0);
-		glClear(GL_COLOR_BUFFER_BIT); // set background for temp fbo
-		
-		// render just the parts we want
+		// rendered a row of tiles per frame, so the map can be bigger than any single fbo. See render()
+		String name = "mostRecentMap";
+		capture = new TiledCapture(minX - bufferX, minY - bufferY, width, height, TiledCapture.DEFAULT_TILE_SIZE, this::renderMapImage)
+				.toPNG(Resources.MAPS_PATH + name + ".png")
+				.whenDone(() -> {
+					Log.log("Saved map capture as " + name + ".png");
+					Sounds.SCARY.forcePlay();
+				});
+		if(pyramid)
+			capture.toPyramid(Resources.MAPS_PATH + name + "_tiles");
+	}
+	
+	/**
+	 * Renders just the parts of the map we want in a capture, thinner than in the editor
+	 */
+	private void renderMapImage(Camera tileCam, Bounds area) {
 		float renderWidth = 1.2f;
 		for(Arc arc : map.fillets) {
+			if(!arc.getBounds().intersects(area))
+				continue;
 			arc.setWidth(renderWidth);
-			arc.render(fboCam);
+			arc.render(tileCam);
 			arc.setWidth(WALL_WIDTH);
 		}
-		for(Segment wall : map.walls) {
+		captureWalls.clear();
+		map.queryWalls(area, captureWalls);
+		for(Segment wall : captureWalls) {
 			wall.setWidth(renderWidth);
-			wall.render(fboCam);
+			wall.render(tileCam);
 			wall.setWidth(WALL_WIDTH);
 		}
 		
-		spawnPoint.scale = 0.01f;
-		spawnPoint.render(fboCam);
-		spawnPoint.scale = 0.02f;
-		
-		// save the fbo to a file
-		BufferedImage img = fbo.readPixels();
-		
-		String name = "mostRecentMap.png";
-		try {
-		    ImageIO.write(img, "png", new File(Resources.MAPS_PATH + name));
-		} catch (IOException e) {
-			Log.err("Cannot write to file: " + Resources.MAPS_PATH + name);
-			e.printStackTrace();
+		if(spawnPoint.getBounds().intersects(area)) {
+			spawnPoint.scale = 0.01f;
+			spawnPoint.render(tileCam);
+			spawnPoint.scale = 0.02f;
 		}
-		fbo.deactivate(); // restore
-		fbo.delete(); // dont need it no mo'
-		Log.log("Saved map capture as " + name);
-		Sounds.SCARY.forcePlay();
 	}
 	
 	@Override
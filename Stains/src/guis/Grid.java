@@ -0,0 +1,86 @@
+package guis;
+
+import static org.lwjgl.opengl.GL11.*;
+
+import org.joml.Matrix4f;
+import org.joml.Vector4f;
+
+import constants.Shaders;
+import gl.Renderable;
+import gl.Renderer;
+import gl.Shader;
+import gl.Uniform;
+import objects.Rect;
+import staindev.Game;
+import util.Camera;
+
+/**
+ * Evenly spaced grid lines computed per pixel by grid.shader on one quad covering the view,
+ * so drawing it costs the same however many lines it has
+ */
+public class Grid implements Renderable {
+	
+	private float size;
+	private float maxX;
+	private float maxY;
+	private float width;
+	private Vector4f color;
+	
+	private Shader program;
+	private Uniform modelUniform;
+	private Uniform colorUniform;
+	private Uniform sizeUniform;
+	private Uniform maxUniform;
+	private Uniform widthUniform;
+	
+	// preallocations
+	private Matrix4f model = new Matrix4f();
+	
+	/**
+	 * Creates a grid with lines every <strong>size</strong> units from 0 to <strong>maxX</strong>, <strong>maxY</strong>
+	 * @param width Width of a line in pixels
+	 */
+	public Grid(float size, float maxX, float maxY, float width, int r, int g, int b, int a) {
+		this.size = size;
+		this.maxX = maxX;
+		this.maxY = maxY;
+		this.width = width;
+		this.color = new Vector4f(r / 255.0f, g / 255.0f, b / 255.0f, a / 255.0f);
+		this.program = Shaders.GRID;
+		this.modelUniform = program.getUniform("u_Model");
+		this.colorUniform = program.getUniform("u_Color");
+		this.sizeUniform = program.getUniform("u_GridSize");
+		this.maxUniform = program.getUniform("u_GridMax");
+		this.widthUniform = program.getUniform("u_LineWidth");
+	}
+	
+	@Override
+	public void render(Camera camera) {
+		Renderer.flush(); // anything batched before this has to be drawn first
+		Renderer.setCamera(camera);
+		program.bind();
+		Rect.bind(); // binds the VAO
+		// stretch the unit quad over exactly what the camera sees
+		modelUniform.set(model.translation(camera.x + Game.WIDTH / 2.0f, camera.y + Game.HEIGHT / 2.0f, 0).scale(Game.WIDTH, Game.HEIGHT, 1.0f));
+		colorUniform.set(color);
+		sizeUniform.set(size);
+		maxUniform.set(maxX, maxY);
+		widthUniform.set(width);
+		glDrawElements(GL_TRIANGLES, Rect.ibo.length, GL_UNSIGNED_INT, 0);
+	}
+	
+	@Override
+	public int getSortShader() {
+		return program.getId();
+	}
+	
+	@Override
+	public int getSortTexture() {
+		return 0; // untextured
+	}
+	
+	public float getSize() {
+		return size;
+	}
+	
+}
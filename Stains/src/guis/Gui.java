@@ -5,6 +5,8 @@ import java.util.List;
 
 import static org.lwjgl.glfw.GLFW.*;
 
+import constants.Layer;
+import gl.RenderQueue;
 import gl.Texture;
 import guis.elements.Button;
 import staindev.Game;
@@ -27,14 +29,17 @@ public abstract class Gui {
 	}
 	
 	protected void renderBackground() {
-		background.render();
+		RenderQueue.submit(background, Layer.BACKGROUND, Game.nullCamera);
 	}
 	
 	protected void renderElements() {
 		for(Button b : elements)
-			b.render();
+			RenderQueue.submit(b, Layer.UI, Game.nullCamera);
 	}
 	
+	/**
+	 * Records this screen into the {@link RenderQueue}. Nothing is drawn until the queue is flushed at the end of the frame
+	 */
 	public void render() {
 		renderBackground();
 		renderElements();
@@ -6,13 +6,15 @@ import org.joml.Matrix4f;
 import org.joml.Vector4f;
 
 import constants.Shaders;
+import gl.Renderable;
+import gl.Renderer;
 import gl.Shader;
+import gl.Uniform;
 import objects.Rect;
 import staindev.Game;
 import util.Camera;
 
-//TODO make this implement a Renderable class which has the matrices, program, slot, x, and y set up, and render() abstract method
-public class Plane {
+public class Plane implements Renderable {
 	
 	private float cx;
 	private float cy;
@@ -22,11 +24,11 @@ public class Plane {
 	private Vector4f color;
 	
 	private Shader program;
+	private Uniform colorUniform;
+	private Uniform modelUniform;
 	
 	// preallocations
-	private Matrix4f proj = new Matrix4f();
 	private Matrix4f model = new Matrix4f();
-	private Matrix4f mvp = new Matrix4f();
 	
 	/**
 	 * Creates a Rectangle with 2 points as corners
@@ -45,6 +47,8 @@ public class Plane {
 		setColor(r, g, b, a);
 		this.defaultColor = new Vector4f(color); // duplicate color
 		this.program = Shaders.COLOR;
+		this.colorUniform = program.getUniform("u_Color");
+		this.modelUniform = program.getUniform("u_Model");
 	}
 	
 	/**
@@ -59,21 +63,23 @@ public class Plane {
 		this.color = new Vector4f(color);
 		this.defaultColor = new Vector4f(color); // duplicate color
 		this.program = Shaders.COLOR;
+		this.colorUniform = program.getUniform("u_Color");
+		this.modelUniform = program.getUniform("u_Model");
 	}
 
 	/**
 	 * Renders this segment to the screen using a camera
 	 * @param camera
 	 */
+	@Override
 	public void render(Camera camera) {
+		Renderer.flush(); // anything batched before this has to be drawn first
+		Renderer.setCamera(camera);
 		program.bind();
 		Rect.bind(); // binds the VAO
-		program.set("u_Color", color);
-		// scale to length, rotate, then translate
-		proj.set(Game.proj);
-		model = model.translation(cx - camera.x, cy - camera.y, 0).scale(width, height, 1.0f);
-		mvp = proj.mul(model); // M x V x P
-		program.set("u_MVP", mvp);
+		colorUniform.set(color);
+		// scale to size, then translate. View and projection come from the camera block
+		modelUniform.set(model.translation(cx, cy, 0).scale(width, height, 1.0f));
 		glDrawElements(GL_TRIANGLES, Rect.ibo.length, GL_UNSIGNED_INT, 0);
 	}
 	
@@ -84,6 +90,16 @@ public class Plane {
 		render(Game.nullCamera);
 	}
 	
+	@Override
+	public int getSortShader() {
+		return program.getId();
+	}
+	
+	@Override
+	public int getSortTexture() {
+		return 0; // untextured
+	}
+	
 	public float getWidth() {
 		return width;
 	}
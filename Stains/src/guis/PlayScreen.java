@@ -1,16 +1,34 @@
 package guis;
 
+import java.io.File;
+
+import constants.Layer;
 import constants.Mode;
+import constants.RenderMode;
+import constants.Resources;
 import constants.Textures;
 import entities.Entity;
+import entities.EntityStore;
 import entities.Player;
+import entities.WorldSnapshot;
+import gl.RenderQueue;
 import gl.Texture;
+import objects.Map;
 import staindev.Game;
+import staindev.Simulation;
 import util.Animation;
+import util.Camera;
+import util.ClickListener;
+import util.Log;
 
 public class PlayScreen extends Gui {
 	
 	private static PlayScreen instance;
+	/** how entities are drawn. Toggled in game so both paths can be compared */
+	public static RenderMode renderMode = RenderMode.BATCHED;
+	/** set on the render thread before the game enters PLAY mode, read by the simulation */
+	private volatile Map map;
+	private Camera camera = new Camera(0, 0);
 	
 	public PlayScreen(Texture background) {
 		super(background);
@@ -20,27 +38,50 @@ public class PlayScreen extends Gui {
 
 	@Override
 	public void switchTo() {
+		loadMap(); // before the simulation starts stepping
 		Game.mode = Mode.PLAY;
 	}
 	
+	/** Advances the world by one step. Runs on the {@link Simulation} thread */
 	@Override
 	public void update() {
-		PlayScreen.getInstance().update();
+		Player player = Player.getInstance(); // makes sure the player exists
 		for(int i = Animation.queue.size() - 1; i >= 0; i--)
 			Animation.queue.get(i).update();
 		
+		EntityStore.storePrevious(); // rendering interpolates from here to wherever the step moves them
+		EntityStore.seek(player.getX(), player.getY(), Game.delta); // before the player moves, like when stains updated first
 		for(int i = Entity.list.size() - 1; i >= 0; i--)
 			Entity.list.get(i).update();
+		ClickListener.moved(Mode.PLAY); // stains under the cursor are looked up again on the next click
 		
 		for(int i = Entity.list.size() - 1; i >= 0; i--)
 			if(Entity.list.get(i).isDead())
-				Entity.list.remove(i);
+				Entity.list.remove(i).free();
 	}
 	
+	/**
+	 * Draws the latest world the simulation published. Entities themselves are never touched here
+	 */
 	@Override
 	public void render() {
-		for(Entity e : Entity.list)
-			e.render(Player.getInstance().getCamera());
+		WorldSnapshot world = Simulation.latest();
+		world.setTime(System.nanoTime(), Simulation.getStepNanos());
+		int player = world.getPlayer();
+		if(player >= 0)
+			camera.setMouseXY(world.getDrawX(player), world.getDrawY(player));
+		if(world.getMap() != null)
+			RenderQueue.submit(world.getMap().getMesh(), Layer.WALLS, camera);
+		// both modes go through the queue on the same layer, so toggling only changes how they are drawn
+		boolean instanced = renderMode == RenderMode.INSTANCED;
+		for(int i = 0; i < world.size(); i++)
+			if(world.isVisible(i, camera))
+				RenderQueue.submit(instanced ? world.getInstance(i) : world.getSprite(i), Layer.OBJECTS, camera);
+	}
+	
+	public static void toggleRenderMode() {
+		renderMode = renderMode == RenderMode.BATCHED ? RenderMode.INSTANCED : RenderMode.BATCHED;
+		Log.log("Entity render mode: " + renderMode);
 	}
 	
 	public static PlayScreen getInstance() {
@@ -50,8 +91,19 @@ public class PlayScreen extends Gui {
 			return new PlayScreen(Textures.Title.BG);
 	}
 	
+	public Map getMap() {
+		return map;
+	}
+	
+	/**
+	 * Loads the most recent map saved by the editor, if there is one
+	 */
 	public void loadMap() {
-		
+		if(!new File(Resources.MAPS_PATH + "mostRecentMap.csmap").exists())
+			return;
+		if(map != null)
+			map.delete();
+		map = Map.loadMap();
 	}
 	
 
@@ -1,19 +1,17 @@
 package guis;
 
-import static org.lwjgl.opengl.GL11.*;
-
-import org.joml.Matrix4f;
 import org.joml.Vector2f;
 import org.joml.Vector4f;
 
 import constants.Shaders;
-import gl.Shader;
-import objects.Line;
+import gl.Renderable;
+import gl.Renderer;
 import staindev.Game;
+import util.Bounded;
+import util.Bounds;
 import util.Camera;
 
-//TODO make this implement a Renderable class which has the matrices, program, slot, x, and y set up, and render() abstract method
-public class Segment {
+public class Segment implements Renderable, Bounded {
 	
 	private float x;
 	private float y;
@@ -24,13 +22,7 @@ public class Segment {
 	private float rot;
 	private Vector4f defaultColor;
 	private Vector4f color;
-	
-	private Shader program;
-	
-	// preallocations
-	private Matrix4f proj = new Matrix4f();
-	private Matrix4f model = new Matrix4f();
-	private Matrix4f mvp = new Matrix4f();
+	private Bounds bounds = new Bounds();
 	
 	/**
 	 * Creates a Line between 2 points
@@ -44,10 +36,10 @@ public class Segment {
 		setStartPoint(x1, y1);
 		setEndPoint(x2, y2);
 		this.width = width;
+		updateBounds();
 		this.color = new Vector4f();
 		setColor(r, g, b, a);
 		this.defaultColor = new Vector4f(color); // duplicate color
-		this.program = Shaders.COLOR;
 	}
 	
 	/**
@@ -58,26 +50,20 @@ public class Segment {
 		setStartPoint(x1, y1);
 		setEndPoint(x2, y2);
 		this.width = width;
+		updateBounds();
 		this.color = new Vector4f(color);
 		this.defaultColor = new Vector4f(color); // duplicate color
-		this.program = Shaders.COLOR;
 	}
 
 	/**
-	 * Renders this segment to the screen using a camera
+	 * Renders this segment to the screen using a camera. The line is added to {@link Renderer#LINES} and drawn
+	 * together with every other line when the batch is flushed
 	 * @param camera
 	 */
+	@Override
 	public void render(Camera camera) {
-		program.bind();
-		Line.bind(); // binds the VAO
-		program.set("u_Color", color);
-		// scale to length, rotate, then translate
-		proj.set(Game.proj);
-		model = model.translation(x - camera.x, y - camera.y, 0).rotate(rot, 0.0f, 0.0f, 1.0f).scale(length, length, 1.0f);
-		mvp = proj.mul(model); // M x V x P
-		program.set("u_MVP", mvp);
-		glLineWidth(width);
-		glDrawElements(GL_LINES, Line.ibo.length, GL_UNSIGNED_INT, 0);
+		Renderer.setCamera(camera);
+		Renderer.LINES.draw(x, y, x2, y2, width, color);
 	}
 	
 	/**
@@ -87,9 +73,20 @@ public class Segment {
 		render(Game.nullCamera);
 	}
 	
+	@Override
+	public int getSortShader() {
+		return Shaders.LINE.getId();
+	}
+	
+	@Override
+	public int getSortTexture() {
+		return 0; // lines of any width share a batch
+	}
+	
 	public void setStartPoint(float x1, float y1) {
 		x = x1;
 		y = y1;
+		updateBounds();
 	}
 	
 	public void setEndPoint(float x2, float y2) {
@@ -97,6 +94,7 @@ public class Segment {
 		this.y2 = y2;
 		this.length = (float) Math.sqrt(Math.pow(y2 - y, 2) + Math.pow(x2 - x, 2));  // distance formala between 2 points
 		this.rot = (float) Math.atan2(y2 - y, x2 - x);
+		updateBounds();
 	}
 	
 	public float getWidth() {
@@ -105,6 +103,16 @@ public class Segment {
 
 	public void setWidth(float width) {
 		this.width = width;
+		updateBounds();
+	}
+	
+	private void updateBounds() {
+		bounds.setBetween(x, y, x2, y2, width / 2);
+	}
+	
+	@Override
+	public Bounds getBounds() {
+		return bounds;
 	}
 
 	public void setColor(int r, int g, int b, int a) {
@@ -124,6 +132,13 @@ public class Segment {
 		return Math.abs(length - vecLen) / Math.max((2000 - length), 500);
 	}
 	
+	/**
+	 * @return the color this segment was created with, ignoring any highlight
+	 */
+	public Vector4f getDefaultColor() {
+		return defaultColor;
+	}
+	
 	public void resetColor() {
 		color.set(defaultColor);
 	}
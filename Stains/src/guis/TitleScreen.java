@@ -19,7 +19,7 @@ public class TitleScreen extends Gui {
 			Sounds.LEMON.forcePlay();
 		}));
 		elements.add(new Button(Game.WIDTH * 0.5f, Game.HEIGHT * 0.4f, 0.15f, Textures.Title.NEWGAME, Mode.TITLE, true, () ->  {
-			Game.mode = Mode.PLAY;
+			PlayScreen.getInstance().switchTo();
 		}));
 		elements.add(new Button(Game.WIDTH * 0.5f, Game.HEIGHT * 0.3f, 0.15f, Textures.Title.SETTINGS, Mode.TITLE, false, () ->  {
 			Sounds.SCARY.forcePlay();
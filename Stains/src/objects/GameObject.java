@@ -1,17 +1,16 @@
 package objects;
 
-import static org.lwjgl.opengl.GL11.*;
-
-import org.joml.Matrix4f;
-
 import constants.Shaders;
-import gl.Shader;
+import gl.Renderable;
+import gl.Renderer;
 import staindev.Game;
+import util.Bounded;
+import util.Bounds;
 import util.Camera;
 
 // TODO this should probably be abstract eventually
-public class GameObject {
-	// assuming to be rectangle so we can use the Rect class for our buffers
+public class GameObject implements Renderable, Bounded {
+	// assuming to be rectangle so it can be batched as a quad by the SpriteBatch
 	
 	public float x;
 	public float y;
@@ -22,14 +21,20 @@ public class GameObject {
 	/** changes brightness of texture. 0 is normal. 1 is fully white. -1 is fully black */
 	public float brightScale;
 	
-	private int slot;
-	private Shader program;
 	private Surface activeTexture;
 	
-	// Preallocations
-	private Matrix4f proj = new Matrix4f();
-	private Matrix4f model = new Matrix4f();
-	private Matrix4f mvp = new Matrix4f();
+	// transform at the start of the last simulation step. Objects that store it are drawn between it and the current one
+	private float lastX;
+	private float lastY;
+	private float lastRot;
+	private boolean interpolated;
+	
+	// bounds cache. The radius only changes with the texture, its frame, or the scale
+	private Bounds bounds = new Bounds();
+	private float boundsRadius;
+	private Surface boundsTexture;
+	private int boundsLayer;
+	private float boundsScale;
 	
 	/**
 	 * Initializes a Game Object which is specifically only a textured quad
@@ -45,36 +50,30 @@ public class GameObject {
 		this.rot = rot;
 		this.scale = scale;
 		this.brightScale = 0.0f; // normal color
-		this.slot = 0;
-		this.program = Shaders.TEXTURE;
 		this.activeTexture = null;
+		this.interpolated = false;
 	}
 	
 	/** 
 	 * Renders the <code>activeTexture</code> to the screen using its properties and this <code>GameObject</code>'s position.
 	 * <code>null</code> is a valid <code>activeTexture</code> which renders nothing.
+	 * The quad is added to {@link Renderer#SPRITES} and drawn when the batch is flushed.
 	 * */
+	@Override
 	public void render(Camera camera) {
 		if(activeTexture != null) {
-			program.bind();
-			activeTexture.bind(slot);
-			Rect.bind(); // binds the VAO
-			proj.set(Game.proj);
-			float trueScale = getTrueScale();
-			model = model.
-					translation(x - camera.x, y - camera.y, 0).
-					rotate(rot - activeTexture.getOffsetRot(), 0.0f, 0.0f, 1.0f).
-					scale(trueScale, trueScale, 1.0f).
-					translate(-activeTexture.getOffsetX(), activeTexture.getOffsetY(), 0).
-					scale(activeTexture.getWidth(), activeTexture.getHeight(), 1.0f);
-			mvp = proj.mul(model); // M x V x P
-			
-			//uniforms
-			program.set("u_Texture", slot);
-			program.set("u_MVP", mvp);
-			program.set("u_BrightScale", brightScale);
-			
-			glDrawElements(GL_TRIANGLES, Rect.ibo.length, GL_UNSIGNED_INT, 0);
+			Renderer.setCamera(camera);
+			Renderer.SPRITES.draw(activeTexture, getDrawX(), getDrawY(), getDrawRot(), getTrueScale(), brightScale);
+		}
+	}
+	
+	/**
+	 * Like {@link #render(Camera)} but adds this object to {@link Renderer#INSTANCES} so the transform is done on the GPU
+	 */
+	public void renderInstanced(Camera camera) {
+		if(activeTexture != null) {
+			Renderer.setCamera(camera);
+			Renderer.INSTANCES.draw(activeTexture, getDrawX(), getDrawY(), getDrawRot(), getTrueScale(), brightScale);
 		}
 	}
 	
@@ -85,6 +84,117 @@ public class GameObject {
 		render(Game.nullCamera);
 	}
 
+	/**
+	 * Remembers the current transform as where this object is coming from. Call before each simulation step
+	 * to have the object drawn smoothly between steps; objects that never call it are drawn where they are
+	 */
+	public void storePrevious() {
+		lastX = x;
+		lastY = y;
+		lastRot = rot;
+		interpolated = true;
+	}
+	
+	/** @return x to draw at, between the last two simulation steps by {@link Game#alpha} */
+	public float getDrawX() {
+		return getLastX() + (getX() - getLastX()) * Game.alpha;
+	}
+	
+	/** @return y to draw at, between the last two simulation steps by {@link Game#alpha} */
+	public float getDrawY() {
+		return getLastY() + (getY() - getLastY()) * Game.alpha;
+	}
+	
+	/** @return x at the start of the last simulation step, or the current x if this object doesn't store it */
+	public float getLastX() {
+		return interpolated ? lastX : x;
+	}
+	
+	/** @return y at the start of the last simulation step, or the current y if this object doesn't store it */
+	public float getLastY() {
+		return interpolated ? lastY : y;
+	}
+	
+	/** @return rotation at the start of the last simulation step, or the current rotation if this object doesn't store it */
+	public float getLastRot() {
+		return interpolated ? lastRot : rot;
+	}
+	
+	/** @return rotation to draw at, turning the short way between the last two simulation steps */
+	public float getDrawRot() {
+		return lerpAngle(getLastRot(), getRot(), Game.alpha);
+	}
+	
+	// transform accessors. Subclasses that keep their transform elsewhere override all of them
+	
+	public float getX() {
+		return x;
+	}
+	
+	public float getY() {
+		return y;
+	}
+	
+	/** @return rotation in radians */
+	public float getRot() {
+		return rot;
+	}
+	
+	public void setX(float x) {
+		this.x = x;
+	}
+	
+	public void setY(float y) {
+		this.y = y;
+	}
+	
+	/** @param rot in radians */
+	public void setRot(float rot) {
+		this.rot = rot;
+	}
+
+	/**
+	 * @return the angle <strong>t</strong> of the way from <strong>from</strong> to <strong>to</strong>, turning the short way
+	 */
+	public static float lerpAngle(float from, float to, float t) {
+		float turn = to - from;
+		if(turn > Math.PI)
+			turn -= Math.PI * 2;
+		else if(turn < -Math.PI)
+			turn += Math.PI * 2;
+		return from + turn * t;
+	}
+
+	@Override
+	public int getSortShader() {
+		return Shaders.TEXTURE.getId();
+	}
+	
+	@Override
+	public int getSortTexture() {
+		return activeTexture != null ? activeTexture.getId() : 0;
+	}
+
+	/**
+	 * @return square around the object that contains its texture at any rotation
+	 */
+	@Override
+	public Bounds getBounds() {
+		if(activeTexture != boundsTexture || scale != boundsScale || (activeTexture != null && activeTexture.getLayer() != boundsLayer)) {
+			boundsTexture = activeTexture;
+			boundsScale = scale;
+			boundsRadius = 0;
+			if(activeTexture != null) {
+				boundsLayer = activeTexture.getLayer();
+				float halfW = activeTexture.getWidth() / 2.0f;
+				float halfH = activeTexture.getHeight() / 2.0f;
+				float offset = (float) Math.sqrt(activeTexture.getOffsetX() * activeTexture.getOffsetX() + activeTexture.getOffsetY() * activeTexture.getOffsetY());
+				boundsRadius = ((float) Math.sqrt(halfW * halfW + halfH * halfH) + offset) * getTrueScale();
+			}
+		}
+		return bounds.setAround(getX(), getY(), boundsRadius);
+	}
+
 	public void setActiveTexture(Surface activeTexture) {
 		this.activeTexture = activeTexture;
 	}
@@ -8,6 +8,8 @@ import constants.Sounds;
 import gl.Texture;
 import guis.Arc;
 import guis.Segment;
+import util.Bounds;
+import util.BoundsGrid;
 import util.FileUtil;
 import util.Log;
 
@@ -20,6 +22,13 @@ public class Map {
 	public int initialSpawnX;
 	public int initialSpawnY;
 	
+	/** size of a spatial index cell, about a screen so a view touches only a few cells */
+	private static final float CELL_SIZE = 512;
+	private BoundsGrid<Segment> wallIndex;
+	private BoundsGrid<Spawner> spawnerIndex;
+	/** walls and fillets baked for drawing */
+	private MapMesh mesh;
+	
 	/**
 	 * Load a map based on its critera
 	 * @param bg Background texture. Can be null if background is never intended to be rendered
@@ -36,6 +45,17 @@ public class Map {
 		this.fillets = fillets;
 		this.initialSpawnX = initialSpawnX;
 		this.initialSpawnY = initialSpawnY;
+		this.wallIndex = new BoundsGrid<>(CELL_SIZE);
+		this.spawnerIndex = new BoundsGrid<>(CELL_SIZE);
+		this.mesh = new MapMesh();
+		for(Segment wall : walls) {
+			wallIndex.add(wall);
+			mesh.add(wall);
+		}
+		for(Arc fillet : fillets)
+			mesh.add(fillet);
+		for(Spawner spawner : spawners)
+			spawnerIndex.add(spawner);
 	}
 	
 	/**
@@ -80,6 +100,69 @@ public class Map {
 		return new Map(new Texture("some name in the file", false), spawners, walls, fillets, initialSpawnX, initialSpawnY);
 	}
 	
+	// walls, fillets and spawners are indexed and baked, so they have to be added and removed through these
+	
+	public void addWall(Segment wall) {
+		walls.add(wall);
+		wallIndex.add(wall);
+		mesh.add(wall);
+	}
+	
+	public void removeWall(Segment wall) {
+		if(walls.remove(wall)) {
+			wallIndex.remove(wall);
+			mesh.remove(wall);
+		}
+	}
+	
+	public void addFillet(Arc fillet) {
+		fillets.add(fillet);
+		mesh.add(fillet);
+	}
+	
+	public void removeFillet(Arc fillet) {
+		if(fillets.remove(fillet))
+			mesh.remove(fillet);
+	}
+	
+	public void addSpawner(Spawner spawner) {
+		spawners.add(spawner);
+		spawnerIndex.add(spawner);
+	}
+	
+	public void removeSpawner(Spawner spawner) {
+		if(spawners.remove(spawner))
+			spawnerIndex.remove(spawner);
+	}
+	
+	/**
+	 * Collects the walls that intersect <strong>area</strong>. The list is appended to, not cleared
+	 */
+	public void queryWalls(Bounds area, List<Segment> out) {
+		wallIndex.query(area, out);
+	}
+	
+	/**
+	 * Collects the spawners that intersect <strong>area</strong>. The list is appended to, not cleared
+	 */
+	public void querySpawners(Bounds area, List<Spawner> out) {
+		spawnerIndex.query(area, out);
+	}
+	
+	/**
+	 * @return the baked walls and fillets, drawn with one call. Culls itself by chunk
+	 */
+	public MapMesh getMesh() {
+		return mesh;
+	}
+	
+	/**
+	 * Frees the GL buffers of the baked mesh. The map should not be drawn after this
+	 */
+	public void delete() {
+		mesh.delete();
+	}
+	
 	public void saveMap() {
 		String fileName = "mostRecentMap.csmap";
 		StringBuilder fileData = new StringBuilder();
@@ -105,12 +188,16 @@ public class Map {
 		Log.log("Saved map as " + fileName);
 	}
 	
+	/** Keeps the background loaded while the map is played. It streams in over the next few frames */
 	public void useMap() {
-		bg.loadImageToGL();
+		if(bg != null)
+			bg.acquire();
 	}
 	
+	/** Lets the background be evicted once the memory is needed for something else */
 	public void stopUseMap() {
-		bg.delete();
+		if(bg != null)
+			bg.release();
 	}
 	
 	public Texture getBackground() {
@@ -0,0 +1,340 @@
+package objects;
+
+import static org.lwjgl.opengl.GL11.GL_TRIANGLES;
+import static org.lwjgl.opengl.GL14.glMultiDrawArrays;
+import static org.lwjgl.opengl.GL15.GL_STATIC_DRAW;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.joml.Vector4f;
+import org.lwjgl.BufferUtils;
+
+import constants.Shaders;
+import gl.LineTessellator;
+import gl.Renderable;
+import gl.Renderer;
+import gl.Shader;
+import gl.VertexArray;
+import gl.VertexBuffer;
+import gl.VertexBufferFormat;
+import guis.Arc;
+import guis.Segment;
+import util.Bounds;
+import util.Camera;
+
+/**
+ * Walls and fillets of a {@link Map} tessellated into triangles and baked into one static vertex buffer.
+ * Where two walls share an end point the corner is filled with a miter, or a round join if the miter would be too long,
+ * and where more walls meet with a circle. The world is split into square chunks and each
+ * chunk owns a range of the buffer with some room to spare, so adding or removing a wall only rewrites the range of its chunk.
+ * The whole buffer is laid out again only when a chunk outgrows its range. Visible chunks are drawn with a single
+ * <code>glMultiDrawArrays</code>
+ */
+public class MapMesh implements Renderable {
+
+	private static final float CHUNK_SIZE = 512;
+	private static final int FLOATS_PER_VERTEX = LineTessellator.FLOATS_PER_VERTEX; // x, y, r, g, b, a. Same as the LineBatch
+
+	private HashMap<Long, Chunk> chunks;
+	private List<Chunk> chunkList;
+	/** walls touching each end point, keyed by the bits of the point */
+	private HashMap<Long, List<Segment>> joints;
+	private boolean dirty;
+
+	private VertexArray vao;
+	private VertexBuffer vbo;
+	private Shader program;
+	private int capacity; // in vertices
+
+	// preallocations
+	private IntBuffer firsts;
+	private IntBuffer counts;
+
+	public MapMesh() {
+		this.chunks = new HashMap<>();
+		this.chunkList = new ArrayList<>();
+		this.joints = new HashMap<>();
+		this.dirty = false;
+		this.program = Shaders.LINE;
+		this.capacity = 0;
+		this.firsts = BufferUtils.createIntBuffer(16);
+		this.counts = BufferUtils.createIntBuffer(16);
+	}
+
+	public void add(Segment wall) {
+		Chunk chunk = chunkFor(wall.getBounds(), true);
+		chunk.walls.add(wall);
+		markDirty(chunk);
+		addJoint(wall.getX1(), wall.getY1(), wall);
+		addJoint(wall.getX2(), wall.getY2(), wall);
+	}
+
+	public void remove(Segment wall) {
+		Chunk chunk = chunkFor(wall.getBounds(), false);
+		if(chunk != null && chunk.walls.remove(wall)) {
+			markDirty(chunk);
+			removeJoint(wall.getX1(), wall.getY1(), wall);
+			removeJoint(wall.getX2(), wall.getY2(), wall);
+		}
+	}
+
+	public void add(Arc fillet) {
+		Chunk chunk = chunkFor(fillet.getBounds(), true);
+		chunk.fillets.add(fillet);
+		markDirty(chunk);
+	}
+
+	public void remove(Arc fillet) {
+		Chunk chunk = chunkFor(fillet.getBounds(), false);
+		if(chunk != null && chunk.fillets.remove(fillet))
+			markDirty(chunk);
+	}
+
+	/**
+	 * Draws every chunk in view of <strong>camera</strong>, rebuilding dirty chunks first
+	 */
+	@Override
+	public void render(Camera camera) {
+		if(dirty)
+			rebuild();
+		if(vbo == null)
+			return; // nothing was ever added
+
+		Bounds view = camera.getView();
+		firsts.clear();
+		counts.clear();
+		for(Chunk chunk : chunkList) {
+			if(chunk.count == 0 || !chunk.bounds.intersects(view))
+				continue;
+			if(!firsts.hasRemaining()) {
+				firsts = grow(firsts);
+				counts = grow(counts);
+			}
+			firsts.put(chunk.first);
+			counts.put(chunk.count);
+		}
+		firsts.flip();
+		counts.flip();
+		if(!firsts.hasRemaining())
+			return;
+
+		Renderer.flush(); // anything batched before this has to be drawn first
+		Renderer.setCamera(camera);
+		program.bind();
+		vao.bind();
+		glMultiDrawArrays(GL_TRIANGLES, firsts, counts);
+	}
+
+	@Override
+	public int getSortShader() {
+		return program.getId();
+	}
+
+	@Override
+	public int getSortTexture() {
+		return 0;
+	}
+
+	public void delete() {
+		if(vbo != null) {
+			vao.delete();
+			vbo.delete();
+			vao = null;
+			vbo = null;
+		}
+	}
+
+	private void markDirty(Chunk chunk) {
+		chunk.dirty = true;
+		dirty = true;
+	}
+
+	private void addJoint(float x, float y, Segment wall) {
+		Long key = pointKey(x, y);
+		List<Segment> walls = joints.get(key);
+		if(walls == null) {
+			walls = new ArrayList<>(2);
+			joints.put(key, walls);
+		}
+		walls.add(wall);
+		Chunk chunk = chunkAt(x, y, true);
+		chunk.joints.add(key);
+		markDirty(chunk);
+	}
+
+	private void removeJoint(float x, float y, Segment wall) {
+		Long key = pointKey(x, y);
+		List<Segment> walls = joints.get(key);
+		if(walls == null)
+			return;
+		walls.remove(wall);
+		Chunk chunk = chunkAt(x, y, false);
+		if(walls.isEmpty()) {
+			joints.remove(key);
+			if(chunk != null)
+				chunk.joints.remove(key);
+		}
+		if(chunk != null)
+			markDirty(chunk);
+	}
+
+	private static Long pointKey(float x, float y) {
+		return ((long) Float.floatToIntBits(x) << 32) | (Float.floatToIntBits(y) & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Chunk an item belongs to, by the center of its bounds. An item may reach into neighbouring chunks;
+	 * each chunk's bounds grow to cover its items so culling stays correct
+	 */
+	private Chunk chunkFor(Bounds bounds, boolean create) {
+		return chunkAt((bounds.minX + bounds.maxX) / 2, (bounds.minY + bounds.maxY) / 2, create);
+	}
+
+	private Chunk chunkAt(float x, float y, boolean create) {
+		int cx = (int) Math.floor(x / CHUNK_SIZE);
+		int cy = (int) Math.floor(y / CHUNK_SIZE);
+		Long key = ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+		Chunk chunk = chunks.get(key);
+		if(chunk == null && create) {
+			chunk = new Chunk();
+			chunks.put(key, chunk);
+			chunkList.add(chunk);
+		}
+		return chunk;
+	}
+
+	private void rebuild() {
+		boolean relayout = vbo == null;
+		for(Chunk chunk : chunkList) {
+			if(chunk.dirty) {
+				chunk.build();
+				if(chunk.count > chunk.capacity)
+					relayout = true;
+			}
+		}
+
+		if(relayout) {
+			// give every chunk room to grow so the next few edits can be written in place
+			int first = 0;
+			for(Chunk chunk : chunkList) {
+				chunk.first = first;
+				chunk.capacity = chunk.count + chunk.count / 4 + 64;
+				first += chunk.capacity;
+			}
+			if(vbo == null) {
+				VertexBufferFormat format = new VertexBufferFormat();
+				format.pushFloat(2); // x, y
+				format.pushFloat(4); // r, g, b, a
+				vao = new VertexArray();
+				vbo = new VertexBuffer(first * FLOATS_PER_VERTEX, format, GL_STATIC_DRAW);
+				vao.addBuffer(vbo);
+				vao.unbind();
+			} else if(first > capacity) {
+				vbo.resize(first * FLOATS_PER_VERTEX);
+			}
+			capacity = Math.max(capacity, first);
+		}
+
+		for(Chunk chunk : chunkList) {
+			if(chunk.dirty || relayout) {
+				if(chunk.count > 0)
+					vbo.setSubData((long) chunk.first * FLOATS_PER_VERTEX, chunk.vertices);
+				chunk.dirty = false;
+			}
+		}
+		dirty = false;
+	}
+
+	private static IntBuffer grow(IntBuffer buffer) {
+		IntBuffer bigger = BufferUtils.createIntBuffer(buffer.capacity() * 2);
+		buffer.flip();
+		bigger.put(buffer);
+		return bigger;
+	}
+
+	private class Chunk {
+
+		List<Segment> walls = new ArrayList<>();
+		List<Arc> fillets = new ArrayList<>();
+		/** end points in this chunk, keys into <code>joints</code> */
+		Set<Long> joints = new HashSet<>();
+		Bounds bounds = new Bounds();
+		Bounds pointBounds = new Bounds();
+		/** built vertices of this chunk, kept so the chunk can be uploaded again after a relayout */
+		FloatBuffer vertices = BufferUtils.createFloatBuffer(0);
+		int first; // in vertices
+		int capacity; // in vertices
+		int count; // in vertices
+		boolean dirty;
+
+		void build() {
+			int maxVertices = walls.size() * LineTessellator.SEGMENT_VERTICES + joints.size() * LineTessellator.CIRCLE_VERTICES;
+			for(Arc fillet : fillets) {
+				fillet.getBounds(); // regenerates the arc if it changed
+				maxVertices += LineTessellator.maxVertices(fillet.getPointCount());
+			}
+			if(vertices.capacity() < maxVertices * FLOATS_PER_VERTEX)
+				vertices = BufferUtils.createFloatBuffer(maxVertices * FLOATS_PER_VERTEX);
+			vertices.clear();
+
+			boolean empty = true;
+			for(Segment wall : walls) {
+				// a highlighted wall is drawn on top by the editor
+				LineTessellator.segment(vertices, wall.getX1(), wall.getY1(), wall.getX2(), wall.getY2(), wall.getWidth(), wall.getDefaultColor());
+				empty = include(wall.getBounds(), empty);
+			}
+			for(Long key : joints) {
+				List<Segment> touching = MapMesh.this.joints.get(key);
+				if(touching.size() < 2)
+					continue; // a loose end stays flat
+				float x = Float.intBitsToFloat((int) (key >>> 32));
+				float y = Float.intBitsToFloat((int) (long) key);
+				float width = 0;
+				for(Segment wall : touching)
+					width = Math.max(width, wall.getWidth());
+				Vector4f c = touching.get(0).getDefaultColor();
+				if(touching.size() == 2) {
+					Segment in = touching.get(0);
+					Segment out = touching.get(1);
+					// arrive along the first wall towards the point, leave along the second away from it
+					float inX = x - otherEndX(in, x, y), inY = y - otherEndY(in, x, y);
+					float outX = otherEndX(out, x, y) - x, outY = otherEndY(out, x, y) - y;
+					LineTessellator.corner(vertices, x, y, inX, inY, outX, outY, width, c);
+				} else {
+					LineTessellator.circle(vertices, x, y, width, c);
+				}
+				empty = include(pointBounds.setAround(x, y, width), empty);
+			}
+			for(Arc fillet : fillets) {
+				LineTessellator.polyline(vertices, fillet.getPoints(), fillet.getPointCount(), fillet.getWidth(), fillet.getColor());
+				empty = include(fillet.getBounds(), empty);
+			}
+			vertices.flip();
+			count = vertices.remaining() / FLOATS_PER_VERTEX;
+		}
+
+		private float otherEndX(Segment wall, float x, float y) {
+			return wall.getX1() == x && wall.getY1() == y ? wall.getX2() : wall.getX1();
+		}
+
+		private float otherEndY(Segment wall, float x, float y) {
+			return wall.getX1() == x && wall.getY1() == y ? wall.getY2() : wall.getY1();
+		}
+
+		private boolean include(Bounds b, boolean empty) {
+			if(empty)
+				bounds.set(b.minX, b.minY, b.maxX, b.maxY);
+			else
+				bounds.union(b);
+			return false;
+		}
+
+	}
+
+}
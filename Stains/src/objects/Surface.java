@@ -3,6 +3,7 @@ package objects;
 import static org.lwjgl.opengl.GL11.*;
 
 import constants.Textures;
+import gl.GLState;
 
 /**
  * Basically just a tie between Animation and Texture
@@ -10,22 +11,51 @@ import constants.Textures;
 public abstract class Surface {
 	
 	public Surface() {
-		Textures.allTextures.add(this);
+		this(true);
+	}
+	
+	/**
+	 * @param tracked <code>false</code> to leave this surface out of {@link Textures#allTextures}, for surfaces whose memory
+	 *                is managed elsewhere and which shouldn't be kept alive for the whole game
+	 */
+	protected Surface(boolean tracked) {
+		if(tracked)
+			Textures.allTextures.add(this);
 	}
 	
 	public abstract void bind(int slot);
 	public abstract void bind();
 	
 	public void unbind() {
-		glBindTexture(GL_TEXTURE_2D, 0);
+		GLState.bindTexture(GL_TEXTURE_2D, 0);
 	}
 	
 	public abstract void delete();
 	
+	/**
+	 * @return a surface showing what this one shows right now, which keeps showing it whatever happens to this one.
+	 *         Lets another thread draw a surface that is still being animated. A plain texture is already that
+	 */
+	public Surface current() {
+		return this;
+	}
+	
+	/** @return the GL texture behind this surface. Batches only need to switch textures when this changes */
+	public abstract int getId();
+	
+	/** @return the layer of an array texture to show, or -1 if this surface is a plain 2D texture */
+	public abstract int getLayer();
+	
 	public abstract int getWidth();
 	public abstract int getHeight();
 	
 	public abstract float getOffsetX();
 	public abstract float getOffsetY();
 	public abstract float getOffsetRot();
+	
+	// texture coordinates of the region this surface occupies. (u0, v0) is the top left corner
+	public abstract float getU0();
+	public abstract float getV0();
+	public abstract float getU1();
+	public abstract float getV1();
 }
@@ -4,6 +4,9 @@ import static org.lwjgl.glfw.Callbacks.glfwFreeCallbacks;
 import static org.lwjgl.glfw.GLFW.*;
 import static org.lwjgl.opengl.GL11.*;
 
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
 import org.joml.Matrix4f;
 import org.lwjgl.Version;
 import org.lwjgl.glfw.GLFWErrorCallback;
@@ -11,10 +14,16 @@ import org.lwjgl.glfw.GLFWVidMode;
 import org.lwjgl.opengl.GL;
 
 import constants.Mode;
+import constants.Resources;
 import constants.Shaders;
 import constants.Sounds;
 import constants.Textures;
+import entities.Player;
+import gl.GLState;
+import gl.PixelReader;
+import gl.RenderQueue;
 import gl.Renderer;
+import gl.TextureManager;
 import guis.EditorScreen;
 import guis.PlayScreen;
 import guis.TitleScreen;
@@ -24,6 +33,8 @@ import objects.Rect;
 import util.Camera;
 import util.ClickListener;
 import util.Cursors;
+import util.EventBus;
+import util.Key;
 import util.Log;
 import util.Mouse;
 import util.Music;
@@ -35,11 +46,22 @@ public class Game {
 	private static String TITLE = "Stain Game";
 	public static int WIDTH;
 	public static int HEIGHT;
-	public static float delta = 0.0f;
-	public static Mode mode = Mode.BLANK;
+	/** simulation steps per second */
+	public static int tickRate = 120;
+	/** most simulation steps per frame. A frame that falls further behind than this drops the rest instead of catching up */
+	static final int MAX_STEPS = 8;
+	/** length of a simulation step in seconds. Fixed, so the simulation behaves the same at any frame rate */
+	public static float delta = 1.0f / tickRate;
+	/** how far the frame being drawn is between the last two simulation steps, from 0 to 1 */
+	public static float alpha = 0.0f;
+	public static volatile Mode mode = Mode.BLANK; // read by the simulation thread
 	public static Matrix4f proj = new Matrix4f(); // can't instantiate until WIDTH and HEIGHT are set
 	public static Matrix4f projSave = new Matrix4f(); // projection matrix to save the initial state
 	public static final Camera nullCamera = new Camera(0, 0); // null camera doesn't change and is mostly for rendering UIs
+	private static boolean screenshotRequested = false;
+	// reused for every event, they are dispatched on the main thread
+	private static EventBus.KeyEvent keyEvent = new EventBus.KeyEvent();
+	private static EventBus.ScrollEvent scrollEvent = new EventBus.ScrollEvent();
 	
 	public static void main(String[] args) {
 		Log.log("LWJGL version " + Version.getVersion());
@@ -78,20 +100,25 @@ public class Game {
 			throw new RuntimeException("Failed to create the GLFW window");
 
 		// Setup a key callback. It will be called every time a key is pressed, repeated
-		// or released. This will be for events such as things that happen once, other
-		// keys will be recognized with glfwGetKey
+		// or released. This will be for events such as things that happen once, handed out
+		// through EventBus.KEYS, other keys will be recognized with Key.down
 		glfwSetKeyCallback(window, (window, key, scancode, action, mods) -> {
-			if(key == GLFW_KEY_ESCAPE && action == GLFW_RELEASE) {
-				glfwSetWindowShouldClose(window, true);
-			}
+			Key.set(key, action);
+			EventBus.KEYS.dispatch(mode, keyEvent.set(key, action, mods));
 		});
+		glfwSetScrollCallback(window, (window, dx, dy) -> EventBus.SCROLLS.dispatch(mode, scrollEvent.set(dx, dy)));
+		for(Mode m : Mode.values())
+			EventBus.KEYS.subscribe(m, Game::handleDebugKey, EventBus.PRIORITY_HIGH);
 		glfwSetMouseButtonCallback(window, (window, button, action, mods) -> {
-			if(action == GLFW_PRESS)
-				for(ClickListener listener : ClickListener.getCallbackList(mode))
-					listener.handleClick(button);
-			else if(action == GLFW_RELEASE)
-				for(ClickListener listener : ClickListener.getCallbackList(mode))
-					listener.handleRelease(button);
+			Mode target = mode;
+			if(target == Mode.PLAY) { // play listeners change the world, so they run on the simulation thread
+				Simulation.post(() -> {
+					Camera camera = Player.getInstance().getCamera();
+					ClickListener.dispatch(target, button, action, camera.getMouseX(), camera.getMouseY());
+				});
+			} else {
+				ClickListener.dispatch(target, button, action, Mouse.x, Mouse.y);
+			}
 		});
 
 		// Make the OpenGL context current
@@ -113,6 +140,7 @@ public class Game {
 		Log.log("OpenGL version " + glGetString(GL_VERSION));
 		
 		Log.log("Loading textures");
+		TextureManager.init();
 		Textures.init();
 		Shaders.init();
 		Log.log("Loading sounds");
@@ -123,6 +151,8 @@ public class Game {
 		Rect.init();
 		Line.init();
 		Point.init();
+		Renderer.init(); // batches share the geometry above
+		PixelReader.init();
 		proj = new Matrix4f().ortho(0, Game.WIDTH, 0, Game.HEIGHT, -1.0f, 1.0f);
 		projSave = new Matrix4f(proj);
 		
@@ -139,10 +169,26 @@ public class Game {
 		// make stuff look nice
 		glEnable(GL_BLEND);
 		glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
-		glEnable(GL_LINE_SMOOTH);
-		glHint(GL_LINE_SMOOTH_HINT, GL_NICEST);
 		glEnable(GL_POINT_SMOOTH);
 		glHint(GL_POINT_SMOOTH_HINT, GL_NICEST);
+		
+		Simulation.start(); // idles until the game is played
+	}
+	
+	/**
+	 * Keys that work in every mode
+	 */
+	private static void handleDebugKey(int key, int action, int mods) {
+		if(key == GLFW_KEY_ESCAPE && action == GLFW_RELEASE) {
+			glfwSetWindowShouldClose(window, true);
+		} else if(key == GLFW_KEY_F3 && action == GLFW_RELEASE) {
+			PlayScreen.toggleRenderMode();
+		} else if(key == GLFW_KEY_F2 && action == GLFW_RELEASE) {
+			screenshotRequested = true; // taken at the end of the next frame
+		} else if(key == GLFW_KEY_F4 && action == GLFW_RELEASE) {
+			Log.log("GL binds last frame: " + GLState.getIssued() + " issued, " + GLState.getSkipped() + " skipped");
+			EventBus.logStats();
+		}
 	}
 	
 	public static void checkError() {
@@ -168,22 +214,46 @@ public class Game {
 		// Run the rendering loop until the user has attempted to close
 		// the window or has pressed the ESCAPE key.
 		double lastSystemTime = glfwGetTime();
+		double accumulator = 0;
 		
 		while(!glfwWindowShouldClose(window)) {
-			updateGame();
+			double currentSystemTime = glfwGetTime();
+			accumulator += currentSystemTime - lastSystemTime;
+			lastSystemTime = currentSystemTime;
+			
+			pollInput();
+			// simulate in fixed steps for the time that passed, render once at vsync
+			double step = 1.0 / tickRate;
+			delta = (float) step;
+			int steps = 0;
+			while(accumulator >= step && steps < MAX_STEPS) {
+				updateGame();
+				accumulator -= step;
+				steps++;
+			}
+			if(accumulator >= step) // way too far behind (e.g. Game was out of focus), don't process a million steps, please
+				accumulator %= step;
+			alpha = (float) (accumulator / step);
+			
 			renderGame();
+			if(screenshotRequested) {
+				takeScreenshot();
+				screenshotRequested = false;
+			}
 			
-			glfwSwapBuffers(window); // swap the color buffers (tick) XXX implement fps system. Update every 1/120 seconds, render at vsync
+			glfwSwapBuffers(window); // swap the color buffers (tick)
+			GLState.endFrame();
+			PixelReader.update(); // pick up screenshots and captures the GPU has finished
+			TextureManager.update(); // upload textures that finished streaming in
 			
 			checkError();
-			
-			double currentSystemTime = glfwGetTime();
-			delta = (float) (currentSystemTime - lastSystemTime);
-			if(delta > 1.0f) delta = 0; // if delta is way too large (e.g. Game was out of focus) don't process a million frames, please
-			lastSystemTime = currentSystemTime;
 		}
 		
+		Simulation.stop();
 		Textures.destroy();
+		TextureManager.destroy();
+		PixelReader.destroy();
+		Renderer.destroy();
 		Shaders.destroy();
 		Sounds.destroy();
 		Cursors.destroy();
@@ -192,13 +262,28 @@ public class Game {
 		Point.destroy();
 	}
 	
+	/**
+	 * Queues a capture of the frame just rendered. It is written to {@link Resources#SCREENSHOTS_PATH} in the background
+	 */
+	private static void takeScreenshot() {
+		String name = "screenshot-" + new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date()) + ".png";
+		PixelReader.readScreen(PixelReader.writePNG(Resources.SCREENSHOTS_PATH + name, () -> {
+			Log.log("Saved screenshot as " + name);
+		}));
+	}
+	
 	public static void restoreProj() {
 		Game.proj = projSave;
 	}
 	
-	public static void updateGame() {
+	/** Polls input once a frame, whether or not the simulation steps */
+	private static void pollInput() {
 		Mouse.getUpdate(); // poll mouse movement
 		glfwPollEvents(); // poll keypress/click events
+	}
+	
+	/** Advances the simulation by one step of {@link #delta} seconds */
+	public static void updateGame() {
 		Music.update(); // make sure music is update 
 		
 		switch(mode) {
@@ -215,7 +300,7 @@ public class Game {
 			
 			break;
 		case PLAY:
-			PlayScreen.getInstance().update();
+			// stepped on the Simulation thread
 			break;
 		case TITLE:
 			TitleScreen.getInstance().update();
@@ -246,6 +331,7 @@ public class Game {
 			TitleScreen.getInstance().render();
 			break;
 		}
+		RenderQueue.flush(); // sort and draw everything the screens recorded, then submit the batches
 	}
 	
 }
\ No newline at end of file
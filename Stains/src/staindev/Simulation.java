@@ -0,0 +1,113 @@
+package staindev;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+import constants.Mode;
+import entities.Entity;
+import entities.WorldSnapshot;
+import guis.PlayScreen;
+import util.Log;
+import util.TripleBuffer;
+
+/**
+ * Runs the PLAY mode simulation on its own thread so it overlaps with rendering instead of adding to it.
+ * Steps at {@link Game#tickRate} and after every batch of steps publishes a {@link WorldSnapshot} which the render
+ * thread picks up with {@link #latest()}. Neither thread ever waits for the other. Input that changes the world, like
+ * clicks, is handed over with {@link #post(Runnable)} and runs on this thread before the next step.
+ * While the game isn't in PLAY mode the thread idles
+ */
+public class Simulation {
+
+	/** how long to sleep between checks while not in PLAY mode, in nanoseconds */
+	private static final long IDLE_NANOS = 2000000;
+
+	private static Thread thread;
+	private static volatile boolean running = false;
+	private static TripleBuffer<WorldSnapshot> snapshots = new TripleBuffer<>(new WorldSnapshot(), new WorldSnapshot(), new WorldSnapshot());
+	private static ConcurrentLinkedQueue<Runnable> inbox = new ConcurrentLinkedQueue<>();
+
+	public static void start() {
+		running = true;
+		thread = new Thread(Simulation::run, "simulation");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops the thread and waits for the step it is in to finish
+	 */
+	public static void stop() {
+		running = false;
+		LockSupport.unpark(thread);
+		try {
+			thread.join(1000);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Runs <strong>task</strong> on the simulation thread before its next step. Safe to call from any thread
+	 */
+	public static void post(Runnable task) {
+		inbox.add(task);
+	}
+
+	/**
+	 * @return the world as of the most recent step. Render thread only. It stays valid until the next call
+	 */
+	public static WorldSnapshot latest() {
+		return snapshots.latest();
+	}
+
+	/**
+	 * @return length of a simulation step in nanoseconds
+	 */
+	public static long getStepNanos() {
+		return 1000000000L / Game.tickRate;
+	}
+
+	private static void run() {
+		long next = 0;
+		boolean idle = true;
+		try {
+			while(running) {
+				if(Game.mode != Mode.PLAY) {
+					idle = true;
+					LockSupport.parkNanos(IDLE_NANOS);
+					continue;
+				}
+				long step = getStepNanos();
+				long now = System.nanoTime();
+				if(idle) { // start the clock over, the time away doesn't need simulating
+					next = now;
+					idle = false;
+				}
+				if(now < next) {
+					LockSupport.parkNanos(next - now);
+					continue;
+				}
+
+				int steps = 0;
+				while(now >= next && steps < Game.MAX_STEPS) {
+					Runnable task;
+					while((task = inbox.poll()) != null)
+						task.run();
+					PlayScreen.getInstance().update();
+					next += step;
+					steps++;
+				}
+				if(now >= next) // too far behind, drop the rest
+					next = now + step;
+
+				snapshots.back().capture(Entity.list, PlayScreen.getInstance().getMap(), next - step);
+				snapshots.publish();
+			}
+		} catch (Throwable t) {
+			Log.err("Simulation stopped: " + t);
+			t.printStackTrace();
+		}
+	}
+
+}
@@ -5,7 +5,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 import constants.Resources;
+import gl.ImageData;
+import gl.ImageLoader;
 import gl.Texture;
+import gl.TextureArray;
 import objects.Surface;
 import staindev.Game;
 
@@ -14,7 +17,15 @@ public class Animation extends Surface {
 	/** list of all animations that wish to be updated */
 	public static List<Animation> queue = new ArrayList<>();;
 	
-	private List<Texture> frames;
+	/** every frame as one layer of a single array texture, so changing frames never changes the bound texture */
+	private TextureArray frames;
+	/** a still of every frame, see {@link #current()} */
+	private Frame[] stills;
+	private int[] frameWidths;
+	private int[] frameHeights;
+	private float[] offsetsX;
+	private float[] offsetsY;
+	private float offsetRot;
 	private int currentFrame;
 	
 	/** time between frames. Equivalent to 1/fps */
@@ -41,7 +52,6 @@ public class Animation extends Surface {
 	 */
 	public Animation(String pathFormat, int fps, int loopTimes, float centerX, float centerY, float quarterTurns) {
 		super();
-		this.frames = new ArrayList<>();
 		this.currentFrame = 0;
 		if(fps > 0) {
 			this.frameDelta = 1.0f / fps;
@@ -54,19 +64,68 @@ public class Animation extends Surface {
 		this.frameElapsedTime = 0;
 		this.maxRunTimes = loopTimes;
 		this.running = false;
-		this.numFrames = 0;
 		this.runTimes = 0;
 		
+		List<String> paths = new ArrayList<>();
 		String format = pathFormat.replace("<", "%0").replace(">", "d"); // convert <n> to %0nd
 		while(true) {
-			String name = String.format(format, numFrames);
-			if(new File(Resources.TEXTURES_PATH + Texture.getLocalPath() + name).exists()) {
-				frames.add(new Texture(name, centerX, centerY, quarterTurns)); // create a new texture for that file
-				numFrames++;
-			} else break;
+			String path = Resources.TEXTURES_PATH + Texture.getLocalPath() + String.format(format, paths.size());
+			if(new File(path).exists())
+				paths.add(path);
+			else break;
 		}
-		if(frames.isEmpty())
+		if(paths.isEmpty())
 			Log.warn("Couldn't find any texture(s) at '" + Resources.TEXTURES_PATH + Texture.getLocalPath() + pathFormat + "'");
+		
+		this.numFrames = paths.size();
+		this.frameWidths = new int[numFrames];
+		this.frameHeights = new int[numFrames];
+		this.offsetsX = new float[numFrames];
+		this.offsetsY = new float[numFrames];
+		this.offsetRot = (float) (quarterTurns * Math.PI / 2);
+		
+		// frames may be decoded in the background. They are handed back in order, so the last one builds the texture
+		ImageData[] images = new ImageData[numFrames];
+		for(int i = 0; i < numFrames; i++) {
+			int frame = i;
+			ImageLoader.load(paths.get(i), image -> {
+				images[frame] = image;
+				if(frame == numFrames - 1)
+					createFrames(images, centerX, centerY);
+			});
+		}
+		if(numFrames == 0) {
+			this.frames = new TextureArray(new ArrayList<>());
+			this.stills = new Frame[0];
+		}
+	}
+	
+	/**
+	 * Uploads the decoded frames. Frames that couldn't be read end the animation early, as if they didn't exist
+	 */
+	private void createFrames(ImageData[] images, float centerX, float centerY) {
+		List<ImageData> loaded = new ArrayList<>();
+		for(ImageData image : images) {
+			if(image == null)
+				break;
+			loaded.add(image);
+		}
+		for(int i = loaded.size(); i < images.length; i++)
+			if(images[i] != null)
+				images[i].free();
+		numFrames = loaded.size();
+		
+		// same offsets Texture would have calculated for each frame
+		for(int i = 0; i < numFrames; i++) {
+			frameWidths[i] = loaded.get(i).getWidth();
+			frameHeights[i] = loaded.get(i).getHeight();
+			offsetsX[i] = centerX - (frameWidths[i] / 2.0f);
+			offsetsY[i] = centerY - (frameHeights[i] / 2.0f);
+		}
+		this.frames = new TextureArray(loaded);
+		this.stills = new Frame[numFrames];
+		for(int i = 0; i < numFrames; i++)
+			stills[i] = new Frame(i);
 	}
 	
 	/**
@@ -119,38 +178,82 @@ public class Animation extends Surface {
 	
 	@Override
 	public void bind(int slot) {
-		frames.get(currentFrame).bind(slot);
+		frames.bind(slot);
+	}
+	
+	@Override
+	public void unbind() {
+		frames.unbind();
 	}
 	
 	@Override
 	public void delete() {
-		for(Texture t : frames)
-			t.delete();
+		frames.delete();
+	}
+	
+	/**
+	 * @return the frame showing now, as a surface that stays on that frame
+	 */
+	@Override
+	public Surface current() {
+		if(stills == null || currentFrame >= stills.length)
+			return this; // not loaded yet
+		return stills[currentFrame];
+	}
+	
+	@Override
+	public int getId() {
+		return frames.getId();
+	}
+	
+	@Override
+	public int getLayer() {
+		return currentFrame;
 	}
 
 	@Override
 	public int getWidth() {
-		return frames.get(currentFrame).getWidth();
+		return frameWidths[currentFrame];
 	}
 
 	@Override
 	public int getHeight() {
-		return frames.get(currentFrame).getHeight();
+		return frameHeights[currentFrame];
 	}
 
 	@Override
 	public float getOffsetX() {
-		return frames.get(currentFrame).getOffsetX();
+		return offsetsX[currentFrame];
 	}
 
 	@Override
 	public float getOffsetY() {
-		return frames.get(currentFrame).getOffsetY();
+		return offsetsY[currentFrame];
 	}
 
 	@Override
 	public float getOffsetRot() {
-		return frames.get(currentFrame).getOffsetRot();
+		return offsetRot;
+	}
+	
+	@Override
+	public float getU0() {
+		return 0.0f;
+	}
+
+	@Override
+	public float getV0() {
+		return 0.0f;
+	}
+
+	@Override
+	public float getU1() {
+		return frameWidths[currentFrame] / (float) frames.getWidth();
+	}
+
+	@Override
+	public float getV1() {
+		return frameHeights[currentFrame] / (float) frames.getHeight();
 	}
 	
 	public boolean isRunning() {
@@ -177,4 +280,86 @@ public class Animation extends Surface {
 		return runTimes >= maxRunTimes;
 	}
 	
+	/**
+	 * One frame of the animation. Shares the array texture and never changes
+	 */
+	private class Frame extends Surface {
+		
+		private final int index;
+		
+		Frame(int index) {
+			super(false); // owned by the animation
+			this.index = index;
+		}
+		
+		@Override
+		public void bind(int slot) {
+			frames.bind(slot);
+		}
+		
+		@Override
+		public void bind() {
+			frames.bind(animationSlot);
+		}
+		
+		@Override
+		public void delete() {} // the animation deletes the array
+		
+		@Override
+		public int getId() {
+			return frames.getId();
+		}
+		
+		@Override
+		public int getLayer() {
+			return index;
+		}
+		
+		@Override
+		public int getWidth() {
+			return frameWidths[index];
+		}
+		
+		@Override
+		public int getHeight() {
+			return frameHeights[index];
+		}
+		
+		@Override
+		public float getOffsetX() {
+			return offsetsX[index];
+		}
+		
+		@Override
+		public float getOffsetY() {
+			return offsetsY[index];
+		}
+		
+		@Override
+		public float getOffsetRot() {
+			return offsetRot;
+		}
+		
+		@Override
+		public float getU0() {
+			return 0.0f;
+		}
+		
+		@Override
+		public float getV0() {
+			return 0.0f;
+		}
+		
+		@Override
+		public float getU1() {
+			return frameWidths[index] / (float) frames.getWidth();
+		}
+		
+		@Override
+		public float getV1() {
+			return frameHeights[index] / (float) frames.getHeight();
+		}
+		
+	}
+	
 }
@@ -0,0 +1,13 @@
+package util;
+
+/**
+ * Anything with a cached world space {@link Bounds}
+ */
+public interface Bounded {
+	
+	/**
+	 * @return bounds containing everything this draws. Owned by the object, do not modify
+	 */
+	Bounds getBounds();
+	
+}
@@ -0,0 +1,54 @@
+package util;
+
+/**
+ * Axis aligned rectangle in world space, used for culling and spatial lookups
+ */
+public class Bounds {
+	
+	public float minX;
+	public float minY;
+	public float maxX;
+	public float maxY;
+	
+	public Bounds() {
+		set(0, 0, 0, 0);
+	}
+	
+	public Bounds set(float minX, float minY, float maxX, float maxY) {
+		this.minX = minX;
+		this.minY = minY;
+		this.maxX = maxX;
+		this.maxY = maxY;
+		return this;
+	}
+	
+	/**
+	 * Sets these bounds to a square of half-size <strong>radius</strong> around a point
+	 */
+	public Bounds setAround(float x, float y, float radius) {
+		return set(x - radius, y - radius, x + radius, y + radius);
+	}
+	
+	/**
+	 * Sets these bounds to contain both points, grown by <strong>pad</strong> on every side
+	 */
+	public Bounds setBetween(float x1, float y1, float x2, float y2, float pad) {
+		return set(Math.min(x1, x2) - pad, Math.min(y1, y2) - pad, Math.max(x1, x2) + pad, Math.max(y1, y2) + pad);
+	}
+	
+	/**
+	 * Grows these bounds to also contain <strong>other</strong>
+	 */
+	public Bounds union(Bounds other) {
+		return set(Math.min(minX, other.minX), Math.min(minY, other.minY), Math.max(maxX, other.maxX), Math.max(maxY, other.maxY));
+	}
+	
+	public boolean intersects(Bounds other) {
+		return minX <= other.maxX && maxX >= other.minX && minY <= other.maxY && maxY >= other.minY;
+	}
+	
+	public boolean contains(float x, float y) {
+		return x >= minX && x <= maxX && y >= minY && y <= maxY;
+	}
+	
+}
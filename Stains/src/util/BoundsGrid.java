@@ -0,0 +1,105 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Uniform grid spatial index. Each item is stored in every cell its bounds touch, so a query only visits the cells
+ * inside the query rectangle and its cost follows what is in view instead of how many items there are.
+ * Items must be removed before their bounds change and added again after
+ */
+public class BoundsGrid<T extends Bounded> {
+	
+	private final float cellSize;
+	private final HashMap<Long, List<T>> cells;
+	private int size;
+	
+	/**
+	 * @param cellSize Width and height of a cell in world units. Roughly the size of a screen works well
+	 */
+	public BoundsGrid(float cellSize) {
+		this.cellSize = cellSize;
+		this.cells = new HashMap<>();
+		this.size = 0;
+	}
+	
+	public void add(T item) {
+		Bounds b = item.getBounds();
+		int maxCX = cell(b.maxX), maxCY = cell(b.maxY);
+		for(int cx = cell(b.minX); cx <= maxCX; cx++) {
+			for(int cy = cell(b.minY); cy <= maxCY; cy++) {
+				Long key = key(cx, cy);
+				List<T> items = cells.get(key);
+				if(items == null) {
+					items = new ArrayList<>();
+					cells.put(key, items);
+				}
+				items.add(item);
+			}
+		}
+		size++;
+	}
+	
+	public void remove(T item) {
+		Bounds b = item.getBounds();
+		int maxCX = cell(b.maxX), maxCY = cell(b.maxY);
+		boolean found = false;
+		for(int cx = cell(b.minX); cx <= maxCX; cx++) {
+			for(int cy = cell(b.minY); cy <= maxCY; cy++) {
+				Long key = key(cx, cy);
+				List<T> items = cells.get(key);
+				if(items != null && items.remove(item)) {
+					found = true;
+					if(items.isEmpty())
+						cells.remove(key);
+				}
+			}
+		}
+		if(found)
+			size--;
+	}
+	
+	public void clear() {
+		cells.clear();
+		size = 0;
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Adds every item whose bounds intersect <strong>area</strong> to <strong>out</strong>, each once
+	 * @param out List to append to. Not cleared first
+	 */
+	public void query(Bounds area, List<T> out) {
+		int minCX = cell(area.minX), minCY = cell(area.minY);
+		int maxCX = cell(area.maxX), maxCY = cell(area.maxY);
+		for(int cx = minCX; cx <= maxCX; cx++) {
+			for(int cy = minCY; cy <= maxCY; cy++) {
+				List<T> items = cells.get(key(cx, cy));
+				if(items == null)
+					continue;
+				for(int i = 0; i < items.size(); i++) {
+					T item = items.get(i);
+					Bounds b = item.getBounds();
+					if(!b.intersects(area))
+						continue;
+					// an item spanning several cells is only reported from the first cell of the overlap
+					if(cell(Math.max(b.minX, area.minX)) == cx && cell(Math.max(b.minY, area.minY)) == cy)
+						out.add(item);
+				}
+			}
+		}
+	}
+	
+	private int cell(float v) {
+		return (int) Math.floor(v / cellSize);
+	}
+	
+	private static Long key(int cx, int cy) {
+		return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+	}
+	
+}
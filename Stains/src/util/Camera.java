@@ -1,10 +1,14 @@
 package util;
 
+import staindev.Game;
+
 public class Camera {
 	
 	public float x;
 	public float y;
 	
+	private Bounds view = new Bounds();
+	
 	public Camera(float x, float y) {
 		this.x = x;
 		this.y = y;
@@ -15,6 +19,21 @@ public class Camera {
 		this.y = y;
 	}
 	
+	/**
+	 * @return the part of the world this camera shows, <code>Game.WIDTH</code> by <code>Game.HEIGHT</code> from its position.
+	 *         The same instance is reused on every call
+	 */
+	public Bounds getView() {
+		return view.set(x, y, x + Game.WIDTH, y + Game.HEIGHT);
+	}
+	
+	/**
+	 * @return <code>true</code> if anything inside <strong>bounds</strong> could be on screen
+	 */
+	public boolean isVisible(Bounds bounds) {
+		return bounds.maxX >= x && bounds.minX <= x + Game.WIDTH && bounds.maxY >= y && bounds.minY <= y + Game.HEIGHT;
+	}
+	
 	public int getMouseX() {
 		return (int) (Mouse.x + x);
 	}
@@ -1,8 +1,5 @@
 package util;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import constants.Mode;
 
 public interface ClickListener {
@@ -10,28 +7,32 @@ public interface ClickListener {
 	public abstract void handleClick(int button);
 	public abstract void handleRelease(int button);
 	
-	/** list that contains all Objects that wish to receive PLAY mouse click input */
-	public static List<ClickListener> playMouseClickCallback = new ArrayList<>();
-	/** list that contains all Objects that wish to receive TITLE mouse click input */
-	public static List<ClickListener> titleMouseClickCallback = new ArrayList<>();
-	/** list that contains all Objects that wish to receive TITLE mouse click input */
-	public static List<ClickListener> editorMouseClickCallback = new ArrayList<>();
-	
+	/**
+	 * Registers <strong>self</strong> for the clicks of a mode, through {@link EventBus#CLICKS}. A {@link SpatialClickListener}
+	 * only hears the presses made over it instead
+	 */
 	public static void addToCallback(ClickListener self, Mode receiveType) {
-		getCallbackList(receiveType).add(self);
+		ClickTargets.of(receiveType).add(self);
+	}
+	
+	public static void removeFromCallback(ClickListener self, Mode receiveType) {
+		ClickTargets.of(receiveType).remove(self);
+	}
+	
+	/**
+	 * Tells the listeners of <strong>mode</strong> about a press or release
+	 * @param x Cursor in the world space of the mode, to find the spatial listeners under it
+	 * @param y Cursor in the world space of the mode
+	 */
+	public static void dispatch(Mode mode, int button, int action, float x, float y) {
+		ClickTargets.of(mode).dispatch(button, action, x, y);
 	}
 	
-	public static List<ClickListener> getCallbackList(Mode mode) {
-		switch(mode) {
-		case EDITOR: return editorMouseClickCallback;
-		case JANITOR: break;
-		case PAUSED: break;
-		case PLAY: return playMouseClickCallback;
-		case TITLE: return titleMouseClickCallback;
-		default: break;
-		}
-		// throw an error instead of returning null which just pushes the issue down the line
-		throw new UnsupportedOperationException("The ClickListener doesn't support " + mode + " mode yet. Might want to add that.");
+	/**
+	 * Marks the spatial listeners of <strong>mode</strong> as moved, so their bounds are looked at again on the next press
+	 */
+	public static void moved(Mode mode) {
+		ClickTargets.of(mode).moved();
 	}
 	
 }
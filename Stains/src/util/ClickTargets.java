@@ -0,0 +1,155 @@
+package util;
+
+import static org.lwjgl.glfw.GLFW.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import constants.Mode;
+
+/**
+ * The click listeners of one {@link Mode}. Plain listeners hear every click through {@link EventBus#CLICKS}.
+ * {@link SpatialClickListener}s are kept in a {@link BoundsGrid} so a press only reaches the ones under the cursor, front to back. The grid holds a copy of
+ * each listener's bounds and is rebuilt on the next press after {@link #moved()}, so listeners that move every step
+ * cost nothing until someone clicks
+ */
+class ClickTargets {
+
+	private static final float CELL_SIZE = 256;
+	private static final Comparator<Target> FRONT_TO_BACK = (a, b) -> Long.compare(b.order, a.order);
+
+	private static EnumMap<Mode, ClickTargets> modes = new EnumMap<>(Mode.class);
+
+	static {
+		for(Mode mode : Mode.values()) // all up front so the map is only ever read afterwards
+			modes.put(mode, new ClickTargets(mode));
+	}
+
+	private final Mode mode;
+	/** spatial listeners in the order they registered. Later ones are drawn over earlier ones */
+	private final LinkedHashMap<SpatialClickListener, Target> spatial = new LinkedHashMap<>();
+	private final BoundsGrid<Target> grid = new BoundsGrid<>(CELL_SIZE);
+	private boolean stale = false;
+	private long nextOrder = 0;
+	/** spatial listeners that heard the press of each button, waiting for its release */
+	private final List<List<SpatialClickListener>> pressed = new ArrayList<>();
+	// scratch
+	private final Bounds point = new Bounds();
+	private final List<Target> hits = new ArrayList<>();
+	private final List<SpatialClickListener> releasing = new ArrayList<>();
+	private final EventBus.ClickEvent event = new EventBus.ClickEvent();
+
+	private ClickTargets(Mode mode) {
+		this.mode = mode;
+		for(int i = 0; i <= GLFW_MOUSE_BUTTON_LAST; i++)
+			pressed.add(new ArrayList<>());
+	}
+
+	static ClickTargets of(Mode mode) {
+		return modes.get(mode);
+	}
+
+	void add(ClickListener listener) {
+		if(listener instanceof SpatialClickListener) {
+			Target target = new Target((SpatialClickListener) listener, nextOrder++);
+			spatial.put(target.listener, target);
+			if(!stale)
+				grid.add(target);
+		} else {
+			EventBus.CLICKS.subscribe(mode, listener);
+		}
+	}
+
+	void remove(ClickListener listener) {
+		if(listener instanceof SpatialClickListener) {
+			Target target = spatial.remove(listener);
+			if(target != null && !stale)
+				grid.remove(target); // bounds are the copy it was added with, so it is found
+			for(List<SpatialClickListener> waiting : pressed)
+				waiting.remove(listener);
+		} else {
+			EventBus.CLICKS.unsubscribe(mode, listener);
+		}
+	}
+
+	void moved() {
+		stale = true;
+	}
+
+	/**
+	 * Tells plain listeners about a press or release, then the spatial ones it concerns
+	 * @param x Cursor in the world space of this mode
+	 * @param y Cursor in the world space of this mode
+	 */
+	void dispatch(int button, int action, float x, float y) {
+		EventBus.CLICKS.dispatch(mode, event.set(button, action, x, y));
+		if(action == GLFW_PRESS)
+			press(button, x, y);
+		else if(action == GLFW_RELEASE)
+			release(button);
+	}
+
+	private void press(int button, float x, float y) {
+		if(stale) {
+			grid.clear();
+			for(Target target : spatial.values())
+				grid.add(target.update());
+			stale = false;
+		}
+		hits.clear();
+		grid.query(point.set(x, y, x, y), hits);
+		hits.sort(FRONT_TO_BACK);
+		List<SpatialClickListener> waiting = pressed.get(button);
+		for(int i = 0; i < hits.size(); i++) {
+			SpatialClickListener listener = hits.get(i).listener;
+			if(!spatial.containsKey(listener))
+				continue; // removed by a listener in front of it
+			waiting.add(listener);
+			listener.handleClick(button);
+		}
+		hits.clear();
+	}
+
+	private void release(int button) {
+		List<SpatialClickListener> waiting = pressed.get(button);
+		releasing.clear();
+		for(int i = 0; i < waiting.size(); i++)
+			releasing.add(waiting.get(i));
+		waiting.clear(); // before calling anyone, who may press again
+		for(int i = 0; i < releasing.size(); i++)
+			releasing.get(i).handleRelease(button);
+		releasing.clear();
+	}
+
+	/**
+	 * A spatial listener with the bounds it had when the grid was last built
+	 */
+	private static class Target implements Bounded {
+
+		final SpatialClickListener listener;
+		final long order;
+		final Bounds bounds = new Bounds();
+
+		Target(SpatialClickListener listener, long order) {
+			this.listener = listener;
+			this.order = order;
+			update();
+		}
+
+		Target update() {
+			Bounds b = listener.getBounds();
+			bounds.set(b.minX, b.minY, b.maxX, b.maxY);
+			return this;
+		}
+
+		@Override
+		public Bounds getBounds() {
+			return bounds;
+		}
+
+	}
+
+}
@@ -0,0 +1,244 @@
+package util;
+
+import static org.lwjgl.glfw.GLFW.*;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+
+import constants.Mode;
+
+/**
+ * Delivers one kind of input event to the listeners subscribed for the current {@link Mode}. Each mode has its own
+ * listener array, ordered by priority and replaced as a whole when someone subscribes or unsubscribes, so dispatching
+ * only walks an array: it never allocates or locks, and listeners may subscribe and unsubscribe from inside a callback,
+ * which takes effect from the next dispatch. Weak subscribers are dropped once they are collected.
+ * Clicks in PLAY mode are dispatched on the simulation thread, everything else on the main thread
+ * @param <L> Listener type
+ * @param <E> Event type. Instances are reused by whoever dispatches them, listeners must not keep them
+ */
+public class EventBus<L, E> {
+
+	public static final int PRIORITY_HIGH = 100;
+	public static final int PRIORITY_NORMAL = 0;
+	public static final int PRIORITY_LOW = -100;
+
+	// before the buses below, which use them while they are created
+	private static final Entry[] NONE = new Entry[0];
+	private static List<EventBus<?, ?>> buses = new ArrayList<>();
+
+	public static final EventBus<ClickListener, ClickEvent> CLICKS = new EventBus<>("clicks", (listener, e) -> {
+		if(e.action == GLFW_PRESS)
+			listener.handleClick(e.button);
+		else if(e.action == GLFW_RELEASE)
+			listener.handleRelease(e.button);
+	});
+	public static final EventBus<KeyListener, KeyEvent> KEYS = new EventBus<>("keys", (listener, e) -> listener.handleKey(e.key, e.action, e.mods));
+	public static final EventBus<ScrollListener, ScrollEvent> SCROLLS = new EventBus<>("scrolls", (listener, e) -> listener.handleScroll(e.dx, e.dy));
+
+	private final String name;
+	private final Delivery<L, E> delivery;
+	private final EnumMap<Mode, Registry> registries = new EnumMap<>(Mode.class);
+
+	private EventBus(String name, Delivery<L, E> delivery) {
+		this.name = name;
+		this.delivery = delivery;
+		for(Mode mode : Mode.values()) // all up front so the map is only ever read afterwards
+			registries.put(mode, new Registry());
+		buses.add(this);
+	}
+
+	public void subscribe(Mode mode, L listener) {
+		subscribe(mode, listener, PRIORITY_NORMAL);
+	}
+
+	/**
+	 * @param priority Listeners with a higher priority hear an event first. Equal priorities go in order of subscription
+	 */
+	public void subscribe(Mode mode, L listener, int priority) {
+		registries.get(mode).add(new Entry(listener, false, priority));
+	}
+
+	/**
+	 * Like {@link #subscribe(Mode, Object, int)} but doesn't keep <strong>listener</strong> from being collected.
+	 * It is unsubscribed once it is. Mind that a lambda or method reference only held here is collected right away
+	 */
+	public void subscribeWeak(Mode mode, L listener, int priority) {
+		registries.get(mode).add(new Entry(listener, true, priority));
+	}
+
+	public void unsubscribe(Mode mode, L listener) {
+		registries.get(mode).remove(listener);
+	}
+
+	/**
+	 * Hands <strong>event</strong> to every listener of <strong>mode</strong>, highest priority first
+	 */
+	@SuppressWarnings("unchecked")
+	public void dispatch(Mode mode, E event) {
+		Registry registry = registries.get(mode);
+		long start = System.nanoTime();
+		Entry[] entries = registry.entries;
+		boolean collected = false;
+		for(int i = 0; i < entries.length; i++) {
+			Object listener = entries[i].get();
+			if(listener != null)
+				delivery.deliver((L) listener, event);
+			else
+				collected = true;
+		}
+		registry.dispatches++;
+		registry.nanos += System.nanoTime() - start;
+		if(collected)
+			registry.remove(null);
+	}
+
+	/** @return number of listeners subscribed for <strong>mode</strong>, counting weak ones not yet found collected */
+	public int getListenerCount(Mode mode) {
+		return registries.get(mode).entries.length;
+	}
+
+	/** @return number of events dispatched for <strong>mode</strong> */
+	public long getDispatchCount(Mode mode) {
+		return registries.get(mode).dispatches;
+	}
+
+	/** @return time spent dispatching events for <strong>mode</strong>, in nanoseconds */
+	public long getDispatchNanos(Mode mode) {
+		return registries.get(mode).nanos;
+	}
+
+	/**
+	 * Logs listener counts and the average cost of a dispatch for every bus and mode that has seen any use
+	 */
+	public static void logStats() {
+		for(EventBus<?, ?> bus : buses) {
+			for(Mode mode : Mode.values()) {
+				Registry registry = bus.registries.get(mode);
+				if(registry.entries.length == 0 && registry.dispatches == 0)
+					continue;
+				float average = registry.dispatches > 0 ? registry.nanos / (float) registry.dispatches / 1000 : 0;
+				Log.log(bus.name + " " + mode + ": " + registry.entries.length + " listeners, " + registry.dispatches + " dispatched, " + average + " us each");
+			}
+		}
+	}
+
+	/**
+	 * Calls the listener method that matches the event. Implementations shouldn't capture anything, so the same instance is used for every dispatch
+	 */
+	private interface Delivery<L, E> {
+		void deliver(L listener, E event);
+	}
+
+	/**
+	 * Listeners of one mode
+	 */
+	private static class Registry {
+
+		/** replaced, never modified, so a dispatch can walk it while it is being subscribed to */
+		volatile Entry[] entries = NONE;
+		// only written by the thread that dispatches for the mode
+		long dispatches;
+		long nanos;
+
+		synchronized void add(Entry entry) {
+			Entry[] old = entries;
+			int at = old.length;
+			while(at > 0 && old[at - 1].priority < entry.priority)
+				at--;
+			Entry[] updated = new Entry[old.length + 1];
+			System.arraycopy(old, 0, updated, 0, at);
+			updated[at] = entry;
+			System.arraycopy(old, at, updated, at + 1, old.length - at);
+			entries = updated;
+		}
+
+		/**
+		 * Removes <strong>listener</strong>, or every collected weak listener if it is <code>null</code>
+		 */
+		synchronized void remove(Object listener) {
+			Entry[] old = entries;
+			Entry[] updated = new Entry[old.length];
+			int count = 0;
+			for(Entry entry : old)
+				if(entry.get() != listener)
+					updated[count++] = entry;
+			if(count != old.length)
+				entries = count == 0 ? NONE : Arrays.copyOf(updated, count);
+		}
+
+	}
+
+	private static class Entry {
+
+		private final Object listener;
+		private final boolean weak;
+		final int priority;
+
+		Entry(Object listener, boolean weak, int priority) {
+			this.listener = weak ? new WeakReference<>(listener) : listener;
+			this.weak = weak;
+			this.priority = priority;
+		}
+
+		/** @return the listener, or <code>null</code> if it was weak and has been collected */
+		Object get() {
+			return weak ? ((WeakReference<?>) listener).get() : listener;
+		}
+
+	}
+
+	/**
+	 * A mouse button was pressed or released
+	 */
+	public static class ClickEvent {
+		public int button;
+		/** <code>GLFW_PRESS</code> or <code>GLFW_RELEASE</code> */
+		public int action;
+		/** cursor in the world space of the mode */
+		public float x;
+		public float y;
+
+		public ClickEvent set(int button, int action, float x, float y) {
+			this.button = button;
+			this.action = action;
+			this.x = x;
+			this.y = y;
+			return this;
+		}
+	}
+
+	/**
+	 * A key was pressed, repeated or released
+	 */
+	public static class KeyEvent {
+		public int key;
+		/** <code>GLFW_PRESS</code>, <code>GLFW_REPEAT</code> or <code>GLFW_RELEASE</code> */
+		public int action;
+		public int mods;
+
+		public KeyEvent set(int key, int action, int mods) {
+			this.key = key;
+			this.action = action;
+			this.mods = mods;
+			return this;
+		}
+	}
+
+	/**
+	 * The mouse wheel or a touchpad scrolled
+	 */
+	public static class ScrollEvent {
+		public double dx;
+		public double dy;
+
+		public ScrollEvent set(double dx, double dy) {
+			this.dx = dx;
+			this.dy = dy;
+			return this;
+		}
+	}
+
+}
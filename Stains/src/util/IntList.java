@@ -0,0 +1,44 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints, for query results that shouldn't box or allocate once the list is big enough
+ */
+public class IntList {
+	
+	private int[] values;
+	private int size;
+	
+	public IntList() {
+		this(16);
+	}
+	
+	public IntList(int capacity) {
+		values = new int[Math.max(capacity, 1)];
+		size = 0;
+	}
+	
+	public void add(int value) {
+		if(size == values.length)
+			values = Arrays.copyOf(values, size * 2);
+		values[size++] = value;
+	}
+	
+	public int get(int index) {
+		return values[index];
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	public void clear() {
+		size = 0;
+	}
+	
+}
@@ -2,11 +2,20 @@ package util;
 
 import static org.lwjgl.glfw.GLFW.*;
 
-import staindev.Game;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 public class Key {
 	
+	/** last action of every key, kept from the key callback so any thread can ask. GLFW may only be polled on the main thread */
+	private static AtomicIntegerArray states = new AtomicIntegerArray(GLFW_KEY_LAST + 1);
+	
 	public static boolean down(int key) {
-		return glfwGetKey(Game.window, key) == 1;
+		return key >= 0 && key <= GLFW_KEY_LAST && states.get(key) != GLFW_RELEASE;
+	}
+	
+	/** Records a key event. Called from the key callback */
+	public static void set(int key, int action) {
+		if(key >= 0 && key <= GLFW_KEY_LAST)
+			states.set(key, action);
 	}
 }
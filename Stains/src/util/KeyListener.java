@@ -0,0 +1,14 @@
+package util;
+
+/**
+ * Hears key events through {@link EventBus#KEYS}. To ask whether a key is held use {@link Key#down(int)} instead
+ */
+public interface KeyListener {
+	
+	/**
+	 * @param action <code>GLFW_PRESS</code>, <code>GLFW_REPEAT</code> or <code>GLFW_RELEASE</code>
+	 * @param mods Bit field of the modifier keys held
+	 */
+	public abstract void handleKey(int key, int action, int mods);
+	
+}
@@ -6,8 +6,8 @@ import staindev.Game;
 
 public class Mouse {
 	
-	public static int x;
-	public static int y;
+	public static volatile int x; // read by the simulation thread
+	public static volatile int y;
 	private static double[] xbuf = new double[1];
 	private static double[] ybuf = new double[1];
 	
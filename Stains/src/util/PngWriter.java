@@ -0,0 +1,149 @@
+package util;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes an 8 bit RGB PNG a row at a time, top to bottom, so an image never has to be held in memory whole.
+ * Rows are deflated as they come in and the compressed data is cut into IDAT chunks of a fixed size
+ */
+public class PngWriter implements Closeable {
+
+	private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	private DataOutputStream out;
+	private DeflaterOutputStream idat;
+	private Deflater deflater;
+	private int width;
+	private int height;
+	private int rowsWritten;
+	private byte[] row;
+
+	/**
+	 * Creates the file and writes the header
+	 */
+	public PngWriter(File file, int width, int height) throws IOException {
+		this.width = width;
+		this.height = height;
+		this.rowsWritten = 0;
+		this.row = new byte[1 + width * 3]; // filter type, then rgb
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		out.write(SIGNATURE);
+
+		byte[] header = new byte[13];
+		writeInt(header, 0, width);
+		writeInt(header, 4, height);
+		header[8] = 8; // bit depth
+		header[9] = 2; // color type: rgb
+		header[10] = 0; // deflate
+		header[11] = 0; // adaptive filtering
+		header[12] = 0; // not interlaced
+		writeChunk("IHDR", header, header.length);
+
+		this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+		this.idat = new DeflaterOutputStream(new ChunkStream(), deflater, CHUNK_SIZE);
+	}
+
+	/**
+	 * Writes the next row from <strong>width</strong> 0xRRGGBB ints. Alpha is ignored
+	 * @param offset Index in <strong>pixels</strong> of the first pixel of the row
+	 */
+	public void writeRow(int[] pixels, int offset) throws IOException {
+		if(rowsWritten == height)
+			throw new IllegalStateException("all " + height + " rows are already written");
+		row[0] = 0; // no filter
+		for(int x = 0, i = 1; x < width; x++) {
+			int p = pixels[offset + x];
+			row[i++] = (byte) (p >> 16);
+			row[i++] = (byte) (p >> 8);
+			row[i++] = (byte) p;
+		}
+		idat.write(row);
+		rowsWritten++;
+	}
+
+	/**
+	 * Finishes the image. Rows that were never written are left out, which makes the file invalid, so a warning is logged
+	 */
+	@Override
+	public void close() throws IOException {
+		if(rowsWritten != height)
+			Log.warn("PNG closed after " + rowsWritten + " of " + height + " rows");
+		idat.close(); // flushes the last IDAT chunk
+		deflater.end();
+		writeChunk("IEND", new byte[0], 0);
+		out.close();
+	}
+
+	private void writeChunk(String type, byte[] data, int length) throws IOException {
+		byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+		CRC32 crc = new CRC32();
+		crc.update(typeBytes);
+		crc.update(data, 0, length);
+		out.writeInt(length);
+		out.write(typeBytes);
+		out.write(data, 0, length);
+		out.writeInt((int) crc.getValue());
+	}
+
+	private static void writeInt(byte[] dest, int offset, int value) {
+		dest[offset] = (byte) (value >>> 24);
+		dest[offset + 1] = (byte) (value >>> 16);
+		dest[offset + 2] = (byte) (value >>> 8);
+		dest[offset + 3] = (byte) value;
+	}
+
+	/**
+	 * Collects deflated bytes and writes them out as IDAT chunks
+	 */
+	private class ChunkStream extends OutputStream {
+
+		private byte[] buffer = new byte[CHUNK_SIZE];
+		private int length = 0;
+
+		@Override
+		public void write(int b) throws IOException {
+			buffer[length++] = (byte) b;
+			if(length == buffer.length)
+				flush();
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			while(len > 0) {
+				int n = Math.min(len, buffer.length - length);
+				System.arraycopy(b, off, buffer, length, n);
+				length += n;
+				off += n;
+				len -= n;
+				if(length == buffer.length)
+					flush();
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if(length > 0) {
+				writeChunk("IDAT", buffer, length);
+				length = 0;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			flush();
+		}
+
+	}
+
+}
@@ -0,0 +1,10 @@
+package util;
+
+/**
+ * Hears the mouse wheel and touchpad scrolling through {@link EventBus#SCROLLS}
+ */
+public interface ScrollListener {
+	
+	public abstract void handleScroll(double dx, double dy);
+	
+}
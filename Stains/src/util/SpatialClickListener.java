@@ -0,0 +1,10 @@
+package util;
+
+/**
+ * A {@link ClickListener} that only hears presses made over its bounds, and the release that follows one.
+ * Listeners like this are found through a spatial index, so a click costs what is under the cursor instead of
+ * how many of them there are
+ */
+public interface SpatialClickListener extends ClickListener, Bounded {
+	
+}
@@ -0,0 +1,185 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid over points, for finding what is near something without looking at everything. Unlike {@link BoundsGrid}
+ * it is rebuilt from scratch with {@link #build(float[], float[], int)}, which is a counting sort into cells and
+ * cheap enough to do every simulation step. While the points are packed closely enough the cells are laid out row by
+ * row over their bounding box, so neighboring cells sit next to each other in memory; points spread out further than
+ * that are hashed into a table sized by their count instead. Either way points are stored sorted by cell, and visiting
+ * them in that order with {@link #indexAt(int)} keeps queries for nearby points in cache.
+ * Queries append point indices to an {@link IntList} and allocate nothing. Once the arrays are big enough neither does building
+ */
+public class SpatialHash {
+
+	private final float cellSize;
+	private final float inverseCellSize;
+	private int count;
+	/** whether cells are hashed instead of laid out over the bounding box */
+	private boolean hashed;
+	private int mask;
+	// bounding box in cells, when not hashed
+	private int minCX;
+	private int minCY;
+	private int columns;
+	private int rows;
+	/** first sorted point of each bucket, with one more entry marking the end of the last */
+	private int[] bucketStart = new int[1];
+	// points sorted by bucket
+	private int[] indices = new int[0];
+	private float[] sortedX = new float[0];
+	private float[] sortedY = new float[0];
+	private int[] cellX = new int[0];
+	private int[] cellY = new int[0];
+	// bucket of every point in input order. Scratch for build()
+	private int[] bucketOf = new int[0];
+
+	/**
+	 * @param cellSize Width and height of a cell in world units. About the radius of the usual query works well
+	 */
+	public SpatialHash(float cellSize) {
+		this.cellSize = cellSize;
+		this.inverseCellSize = 1 / cellSize;
+	}
+
+	/**
+	 * Replaces the contents with points <code>0</code> to <strong>count</strong> - 1
+	 */
+	public void build(float[] x, float[] y, int count) {
+		this.count = count;
+		if(indices.length < count) {
+			int capacity = Math.max(count, indices.length * 2);
+			indices = new int[capacity];
+			sortedX = new float[capacity];
+			sortedY = new float[capacity];
+			cellX = new int[capacity];
+			cellY = new int[capacity];
+			bucketOf = new int[capacity];
+		}
+		float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+		float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+		for(int i = 0; i < count; i++) {
+			minX = Math.min(minX, x[i]);
+			minY = Math.min(minY, y[i]);
+			maxX = Math.max(maxX, x[i]);
+			maxY = Math.max(maxY, y[i]);
+		}
+		int buckets;
+		if(count > 0 && (cell(maxX) - (long) cell(minX) + 1) * (cell(maxY) - (long) cell(minY) + 1) <= Math.max(count * 4L, 64)) {
+			hashed = false;
+			minCX = cell(minX);
+			minCY = cell(minY);
+			columns = cell(maxX) - minCX + 1;
+			rows = cell(maxY) - minCY + 1;
+			buckets = columns * rows;
+		} else {
+			hashed = true;
+			buckets = Integer.highestOneBit(Math.max(count, 8) * 2 - 1) << 1; // at least twice as many as points
+			mask = buckets - 1;
+		}
+		if(bucketStart.length < buckets + 1)
+			bucketStart = new int[Math.max(buckets + 1, bucketStart.length * 2)];
+		Arrays.fill(bucketStart, 0, buckets + 1, 0);
+
+		for(int i = 0; i < count; i++) {
+			int bucket = bucket(cell(x[i]), cell(y[i]));
+			bucketOf[i] = bucket;
+			bucketStart[bucket + 1]++;
+		}
+		for(int b = 0; b < buckets; b++)
+			bucketStart[b + 1] += bucketStart[b];
+		// place each point at the next free spot of its bucket, then shift the starts back
+		for(int i = 0; i < count; i++) {
+			int at = bucketStart[bucketOf[i]]++;
+			indices[at] = i;
+			sortedX[at] = x[i];
+			sortedY[at] = y[i];
+			cellX[at] = cell(x[i]);
+			cellY[at] = cell(y[i]);
+		}
+		for(int b = buckets; b > 0; b--)
+			bucketStart[b] = bucketStart[b - 1];
+		bucketStart[0] = 0;
+	}
+
+	/**
+	 * Adds every point within <strong>radius</strong> of (<strong>x</strong>, <strong>y</strong>) to <strong>out</strong>,
+	 * including one that is exactly there
+	 * @param out List to append to. Not cleared first
+	 */
+	public void queryRadius(float x, float y, float radius, IntList out) {
+		float radius2 = radius * radius;
+		int maxCX = cell(x + radius), maxCY = cell(y + radius);
+		for(int cy = cell(y - radius); cy <= maxCY; cy++) {
+			for(int cx = cell(x - radius); cx <= maxCX; cx++) {
+				int bucket = bucket(cx, cy);
+				if(bucket < 0)
+					continue;
+				for(int k = bucketStart[bucket], end = bucketStart[bucket + 1]; k < end; k++) {
+					if(hashed && (cellX[k] != cx || cellY[k] != cy))
+						continue; // another cell that hashed to the same bucket
+					float dx = sortedX[k] - x;
+					float dy = sortedY[k] - y;
+					if(dx * dx + dy * dy <= radius2)
+						out.add(indices[k]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds every point inside <strong>area</strong> to <strong>out</strong>
+	 * @param out List to append to. Not cleared first
+	 */
+	public void queryBounds(Bounds area, IntList out) {
+		int maxCX = cell(area.maxX), maxCY = cell(area.maxY);
+		for(int cy = cell(area.minY); cy <= maxCY; cy++) {
+			for(int cx = cell(area.minX); cx <= maxCX; cx++) {
+				int bucket = bucket(cx, cy);
+				if(bucket < 0)
+					continue;
+				for(int k = bucketStart[bucket], end = bucketStart[bucket + 1]; k < end; k++)
+					if(cellX[k] == cx && cellY[k] == cy && area.contains(sortedX[k], sortedY[k]))
+						out.add(indices[k]);
+			}
+		}
+	}
+
+	/**
+	 * @return index of the <strong>k</strong>th point in cell order. Going through points like this instead of by their
+	 *         index means points queried one after another are near each other, and so is what the queries read
+	 */
+	public int indexAt(int k) {
+		return indices[k];
+	}
+
+	/** @return number of points in the last build */
+	public int size() {
+		return count;
+	}
+
+	public float getCellSize() {
+		return cellSize;
+	}
+
+	private int cell(float v) {
+		return (int) Math.floor(v * inverseCellSize);
+	}
+
+	/**
+	 * @return bucket of a cell, or -1 if it is outside the bounding box and so has no points
+	 */
+	private int bucket(int cx, int cy) {
+		if(!hashed) {
+			int column = cx - minCX, row = cy - minCY;
+			if(column < 0 || row < 0 || column >= columns || row >= rows)
+				return -1;
+			return row * columns + column;
+		}
+		int h = cx * 0x9E3779B1 + cy;
+		h *= 0x85EBCA6B;
+		return (h ^ (h >>> 16)) & mask; // mixes the high bits in, nearby cells differ mostly in the low ones
+	}
+
+}
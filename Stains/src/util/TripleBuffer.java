@@ -0,0 +1,54 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands values from one writer thread to one reader thread without locks. Of the three slots the writer owns one,
+ * the reader owns one, and the third sits in between. Publishing swaps the writer's slot with the middle one, reading
+ * swaps the middle one with the reader's if something new was published. Neither side ever waits for the other, and
+ * a slot is never touched by both at once, so its contents can be read freely until the next {@link #latest()}
+ */
+public class TripleBuffer<T> {
+
+	/** set in <code>middle</code> when the middle slot holds something the reader hasn't seen */
+	private static final int FRESH = 4;
+	private static final int INDEX = 3;
+
+	private final Object[] slots;
+	private final AtomicInteger middle;
+	private int back; // only touched by the writer
+	private int front; // only touched by the reader
+
+	public TripleBuffer(T a, T b, T c) {
+		this.slots = new Object[] { a, b, c };
+		this.back = 0;
+		this.front = 1;
+		this.middle = new AtomicInteger(2);
+	}
+
+	/**
+	 * @return the slot for the writer to fill. Writer thread only
+	 */
+	@SuppressWarnings("unchecked")
+	public T back() {
+		return (T) slots[back];
+	}
+
+	/**
+	 * Hands the filled slot over and takes a new one to write into. Writer thread only
+	 */
+	public void publish() {
+		back = middle.getAndSet(back | FRESH) & INDEX;
+	}
+
+	/**
+	 * @return the most recently published value, or the same one as last time if nothing new was published. Reader thread only
+	 */
+	@SuppressWarnings("unchecked")
+	public T latest() {
+		if((middle.get() & FRESH) != 0)
+			front = middle.getAndSet(front) & INDEX;
+		return (T) slots[front];
+	}
+
+}